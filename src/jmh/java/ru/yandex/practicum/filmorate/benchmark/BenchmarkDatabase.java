@@ -0,0 +1,183 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
+import ru.yandex.practicum.filmorate.storage.index.FilmLikesIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.FriendshipIndex;
+import ru.yandex.practicum.filmorate.storage.index.PopularFilmsIndex;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Контекст приложения (по умолчанию без веб-слоя) поверх отдельной in-memory базы H2 и генератор тестовых данных.
+ * Данные пишутся напрямую JDBC-батчами, после чего индексы в памяти перечитываются из базы.
+ */
+public final class BenchmarkDatabase implements AutoCloseable {
+    private static final int BATCH_SIZE = 10_000;
+
+    private final ConfigurableApplicationContext context;
+    private final JdbcTemplate jdbc;
+    private final Random random = new Random(42);
+    private int users;
+    private int films;
+
+    private BenchmarkDatabase(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.jdbc = context.getBean(JdbcTemplate.class);
+    }
+
+    public static BenchmarkDatabase start(String name, String... properties) {
+        return start(name, WebApplicationType.NONE, properties);
+    }
+
+    // Полный контекст с веб-сервером на случайном порту, см. port()
+    public static BenchmarkDatabase startWeb(String name, String... properties) {
+        List<String> all = new ArrayList<>(List.of(properties));
+        all.add("server.port=0");
+        return start(name, WebApplicationType.SERVLET, all.toArray(String[]::new));
+    }
+
+    private static BenchmarkDatabase start(String name, WebApplicationType type, String... properties) {
+        List<String> all = new ArrayList<>(List.of(
+                "filmorate.h2.location=mem:" + name + ";DB_CLOSE_DELAY=-1",
+                "logging.level.root=WARN",
+                "logging.level.ru.yandex.practicum.filmorate=WARN"));
+        all.addAll(List.of(properties));
+        // Аргументами командной строки, а не properties(): те лишь значения по умолчанию,
+        // и application.properties подменил бы базу на файловую
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(type)
+                .bannerMode(Banner.Mode.OFF)
+                .run(all.stream().map(property -> "--" + property).toArray(String[]::new));
+        return new BenchmarkDatabase(context);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int port() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    public JdbcTemplate jdbc() {
+        return jdbc;
+    }
+
+    public Random random() {
+        return random;
+    }
+
+    public int users() {
+        return users;
+    }
+
+    public int films() {
+        return films;
+    }
+
+    public BenchmarkDatabase seedUsers(int count) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= count; i++) {
+            rows.add(new Object[]{"user" + i + "@mail.ru", "user" + i, "User " + i, Date.valueOf(LocalDate.of(1990, 1, 1))});
+            if (rows.size() == BATCH_SIZE || i == count) {
+                jdbc.batchUpdate("INSERT INTO users(email, login, name, birthday) VALUES (?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        users += count;
+        return this;
+    }
+
+    public BenchmarkDatabase seedFilms(int count) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> genres = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= count; i++) {
+            rows.add(new Object[]{"Фильм " + i, "Описание фильма номер " + i,
+                    Date.valueOf(LocalDate.of(1950 + random.nextInt(75), 1 + random.nextInt(12), 1)),
+                    60 + random.nextInt(120), 1 + random.nextInt(5)});
+            if (rows.size() == BATCH_SIZE || i == count) {
+                jdbc.batchUpdate("INSERT INTO films(name, description, releaseDate, duration, mpa_id) " +
+                        "VALUES (?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        for (int id = films + 1; id <= films + count; id++) {
+            int first = 1 + random.nextInt(6);
+            genres.add(new Object[]{id, first});
+            if (random.nextBoolean()) {
+                genres.add(new Object[]{id, first % 6 + 1});
+            }
+            if (genres.size() >= BATCH_SIZE || id == films + count) {
+                jdbc.batchUpdate("INSERT INTO films_genre(film_id, genre_id) VALUES (?, ?)", genres);
+                genres.clear();
+            }
+        }
+        films += count;
+        return this;
+    }
+
+    /**
+     * Лайки распределены неравномерно: фильмы с меньшими id получают их чаще, как популярные тайтлы.
+     */
+    public BenchmarkDatabase seedLikes(int count) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= count; i++) {
+            long filmId = 1 + (long) (films * Math.pow(random.nextDouble(), 3));
+            rows.add(new Object[]{filmId, 1 + random.nextInt(users)});
+            if (rows.size() == BATCH_SIZE || i == count) {
+                jdbc.batchUpdate("MERGE INTO films_likes(film_id, user_id) KEY (film_id, user_id) VALUES (?, ?)", rows);
+                rows.clear();
+            }
+        }
+        jdbc.update("UPDATE films SET likes_count = (SELECT COUNT(*) FROM films_likes WHERE film_id = films.id)");
+        return this;
+    }
+
+    public BenchmarkDatabase seedFriends(int perUser) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int user = 1; user <= users; user++) {
+            for (int i = 0; i < perUser; i++) {
+                int friend = 1 + random.nextInt(users);
+                if (friend != user) {
+                    rows.add(new Object[]{user, friend});
+                }
+            }
+            if (rows.size() >= BATCH_SIZE || user == users) {
+                jdbc.batchUpdate("MERGE INTO friendship_request(from_user_id, to_user_id, status) " +
+                        "KEY (from_user_id, to_user_id) VALUES (?, ?, true)", rows);
+                rows.clear();
+            }
+        }
+        return this;
+    }
+
+    public BenchmarkDatabase reloadIndexes() {
+        bean(PopularFilmsIndex.class).load();
+        bean(FriendshipIndex.class).load();
+        bean(FilmLikesIndex.class).load();
+        bean(FilmSearchIndex.class).load();
+        bean(UserDbStorage.class).loadIds();
+        bean(FilmDbStorage.class).loadIds();
+        bean(FilmCache.class).clear();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        jdbc.execute("SHUTDOWN");
+        context.close();
+    }
+}
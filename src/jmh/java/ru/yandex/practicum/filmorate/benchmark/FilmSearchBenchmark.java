@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск и переиндексация фильма в FilmSearchIndex. Индекс строится без базы и контекста: миллион фильмов
+ * в in-memory H2 вместе с индексом не помещается в кучу бенчмарка. Названия и описания те же, что пишет
+ * BenchmarkDatabase.seedFilms: у каждого фильма уникальное слово (номер) и общие для всех слова.
+ * При старте печатается, сколько кучи занимает индекс.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class FilmSearchBenchmark {
+    private static final Set<FilmSearchIndex.Field> ALL_FIELDS = EnumSet.allOf(FilmSearchIndex.Field.class);
+
+    @Param({"1000000"})
+    private int films;
+
+    private FilmSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        // JdbcTemplate нужен только load(), индекс заполняется через index()
+        index = new FilmSearchIndex(null);
+        for (int id = 1; id <= films; id++) {
+            index.index(id, "Фильм " + id, "Описание фильма номер " + id);
+        }
+        long after = usedHeap();
+        System.out.printf("%nИндекс на %d фильмов: %d МБ кучи, %d байт на фильм%n", films,
+                (after - before) >> 20, (after - before) / films);
+    }
+
+    // Уникальное слово: один короткий список id
+    @Benchmark
+    public List<Long> searchUnique() {
+        return index.search(String.valueOf(1 + ThreadLocalRandom.current().nextInt(films)), ALL_FIELDS, 10);
+    }
+
+    // Слово из каждого названия: оценка всех фильмов
+    @Benchmark
+    public List<Long> searchCommon() {
+        return index.search("фильм", ALL_FIELDS, 10);
+    }
+
+    // Общее слово и префикс номера: пересечение оценок всех фильмов с десятком коротких списков
+    @Benchmark
+    public List<Long> searchCommonAndPrefix() {
+        return index.search("фильм " + (films / 10 + ThreadLocalRandom.current().nextInt(films - films / 10)),
+                ALL_FIELDS, 10);
+    }
+
+    @Benchmark
+    public void reindex() {
+        int id = 1 + ThreadLocalRandom.current().nextInt(films);
+        index.index(id, "Фильм " + id, "Описание фильма номер " + id);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmStorageBenchmark {
+    @Param({"10000", "100000"})
+    private int films;
+
+    @Param({"100"})
+    private int page;
+
+    // 0 отключает кэш фильмов и измеряет чистую загрузку из H2
+    @Param({"0", "10000"})
+    private int cacheSize;
+
+    // minimal — маленький кэш страниц H2 без кэша разобранных запросов, tuned — настройки application.properties
+    @Param({"minimal", "tuned"})
+    private String datasource;
+
+    private BenchmarkDatabase database;
+    private FilmDbStorage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("films", datasourceProperties("filmorate.cache.films.max-size=" + cacheSize))
+                .seedUsers(1000)
+                .seedFilms(films)
+                .reloadIndexes();
+        storage = database.bean(FilmDbStorage.class);
+    }
+
+    private String[] datasourceProperties(String cache) {
+        if (datasource.equals("minimal")) {
+            return new String[]{cache, "filmorate.h2.cache-size=1024", "filmorate.h2.query-cache-size=0",
+                    "spring.datasource.hikari.maximum-pool-size=2", "spring.datasource.hikari.minimum-idle=1"};
+        }
+        return new String[]{cache};
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Film findById() {
+        return storage.findById(1 + ThreadLocalRandom.current().nextInt(films));
+    }
+
+    @Benchmark
+    public List<Film> findAllByIds() {
+        List<Long> ids = new ArrayList<>(page);
+        for (int i = 0; i < page; i++) {
+            ids.add(1L + ThreadLocalRandom.current().nextInt(films));
+        }
+        return storage.findAllByIds(ids);
+    }
+
+    @Benchmark
+    public List<Film> findPage() {
+        return storage.findPage(ThreadLocalRandom.current().nextInt(films - page), page);
+    }
+
+    @Benchmark
+    public List<Film> findAll() {
+        return storage.findAll();
+    }
+
+    @Benchmark
+    public Film create() {
+        Film film = new Film();
+        film.setName("Новый фильм");
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new Mpa(1, null));
+        film.setGenres(List.of(new Genre(2, null)));
+        return storage.create(film);
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность HTTP-слоя при 1000 одновременных клиентах: пул потоков Tomcat против
+ * виртуальных потоков. Каждый клиент запрашивает случайный фильм и страницу популярных фильмов,
+ * так что запрос проходит весь путь до JDBC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(1000)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class HttpThroughputBenchmark {
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"10000"})
+    private int films;
+
+    private BenchmarkDatabase database;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.startWeb("http" + virtualThreads,
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.max-connections=2000",
+                        "server.tomcat.accept-count=1000")
+                .seedUsers(1000)
+                .seedFilms(films)
+                .seedLikes(100000)
+                .reloadIndexes();
+        baseUrl = "http://localhost:" + database.port();
+        client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public int getFilm() throws IOException, InterruptedException {
+        long filmId = 1 + ThreadLocalRandom.current().nextInt(films);
+        return get("/films/" + filmId);
+    }
+
+    @Benchmark
+    public int getPopular() throws IOException, InterruptedException {
+        return get("/films/popular?count=10");
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ImportService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пакетная загрузка из NDJSON тем же путём, что и POST /films/batch, /users/batch и /films/likes/batch:
+ * разбор потока, проверка и запись батчами. Счёт идёт в строках в секунду, цель — от 100 тысяч.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportBenchmark {
+    // Должно совпадать с @OperationsPerInvocation
+    private static final int ROWS = 10_000;
+
+    @Param({"100000"})
+    private int users;
+
+    @Param({"50000"})
+    private int films;
+
+    private BenchmarkDatabase database;
+    private ImportService importService;
+    private ObjectMapper objectMapper;
+    private byte[] filmRows;
+    private byte[] userRows;
+    private byte[] likeRows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("import")
+                .seedUsers(users)
+                .seedFilms(films)
+                .reloadIndexes();
+        importService = database.bean(ImportService.class);
+        objectMapper = database.bean(ObjectMapper.class);
+
+        Random random = database.random();
+        StringBuilder filmsJson = new StringBuilder();
+        StringBuilder usersJson = new StringBuilder();
+        StringBuilder likesJson = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            filmsJson.append("{\"name\":\"Импорт ").append(i).append("\",\"description\":\"Описание\",")
+                    .append("\"releaseDate\":\"2000-01-01\",\"duration\":100,\"mpa\":{\"id\":")
+                    .append(1 + random.nextInt(5)).append("},\"genres\":[{\"id\":")
+                    .append(1 + random.nextInt(6)).append("}]}\n");
+            usersJson.append("{\"email\":\"import").append(i).append("@mail.ru\",\"login\":\"import").append(i)
+                    .append("\",\"birthday\":\"1990-01-01\"}\n");
+            likesJson.append("{\"filmId\":").append(1 + random.nextInt(films)).append(",\"userId\":")
+                    .append(1 + random.nextInt(users)).append("}\n");
+        }
+        filmRows = filmsJson.toString().getBytes(StandardCharsets.UTF_8);
+        userRows = usersJson.toString().getBytes(StandardCharsets.UTF_8);
+        likeRows = likesJson.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public ImportResult films() throws IOException {
+        return importService.importFilms(objectMapper.readerFor(Film.class).readValues(filmRows));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public ImportResult users() throws IOException {
+        return importService.importUsers(objectMapper.readerFor(User.class).readValues(userRows));
+    }
+
+    // Повторные лайки не меняют данных, но проходят весь путь проверки и записи
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public ImportResult likes() throws IOException {
+        return importService.importLikes(objectMapper.readerFor(Like.class).readValues(likeRows));
+    }
+}
@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запросы к таблицам связей до и после V2: schema=V1 — схема без составных ключей и покрывающих индексов,
+ * schema=latest — все миграции. Контекст приложения не поднимается: его бины рассчитаны на последнюю схему.
+ * H2 сам индексирует столбцы внешних ключей, поэтому разница показывает выигрыш именно от ключей V2.
+ * Объём как в исходной задаче: -p likes=10000000.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JoinTableKeysBenchmark {
+    @Param({"V1", "latest"})
+    private String schema;
+
+    @Param({"100000"})
+    private int users;
+
+    @Param({"50000"})
+    private int films;
+
+    @Param({"1000000"})
+    private int likes;
+
+    @Param({"10"})
+    private int friendsPerUser;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:join-keys-" + schema + ";DB_CLOSE_DELAY=-1",
+                "sa", "password", true);
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .target("V1".equals(schema) ? "1" : "latest")
+                .load();
+        flyway.migrate();
+        jdbc = new JdbcTemplate(dataSource);
+        seed();
+    }
+
+    // Пары генерируются без повторов, чтобы обе схемы содержали одни и те же строки
+    private void seed() {
+        jdbc.update("INSERT INTO users(email, login, name, birthday) " +
+                "SELECT 'user' || X || '@mail.ru', 'user' || X, 'User ' || X, DATE '1990-01-01' " +
+                "FROM SYSTEM_RANGE(1, ?)", users);
+        jdbc.update("INSERT INTO films(name, description, releaseDate, duration, mpa_id) " +
+                "SELECT 'Фильм ' || X, 'Описание фильма номер ' || X, DATE '2000-01-01', 100, 1 + MOD(X, 5) " +
+                "FROM SYSTEM_RANGE(1, ?)", films);
+        jdbc.update("INSERT INTO films_genre(film_id, genre_id) " +
+                "SELECT X, 1 + MOD(X, 6) FROM SYSTEM_RANGE(1, ?)", films);
+        jdbc.update("INSERT INTO films_genre(film_id, genre_id) " +
+                "SELECT X, 1 + MOD(X + 1, 6) FROM SYSTEM_RANGE(1, ?) WHERE MOD(X, 2) = 0", films);
+        jdbc.update("INSERT INTO films_likes(film_id, user_id) " +
+                "SELECT 1 + MOD(X / ? + MOD(X, ?), ?), 1 + MOD(X, ?) FROM SYSTEM_RANGE(0, ? - 1)",
+                users, users, films, users, likes);
+        jdbc.update("INSERT INTO friendship_request(from_user_id, to_user_id, status) " +
+                "SELECT 1 + MOD(X, ?), 1 + MOD(X + X / ? + 1, ?), true FROM SYSTEM_RANGE(0, ? - 1)",
+                users, users, users, users * friendsPerUser);
+        jdbc.execute("ANALYZE");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbc.execute("SHUTDOWN");
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public Integer likeExists() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM films_likes WHERE film_id = ? AND user_id = ?",
+                Integer.class, randomFilm(), randomUser());
+    }
+
+    @Benchmark
+    public List<Long> likedFilmsOfUser() {
+        return jdbc.queryForList("SELECT film_id FROM films_likes WHERE user_id = ? ORDER BY film_id",
+                Long.class, randomUser());
+    }
+
+    @Benchmark
+    public List<Long> genresOfFilm() {
+        return jdbc.queryForList("SELECT genre_id FROM films_genre WHERE film_id = ?", Long.class, randomFilm());
+    }
+
+    @Benchmark
+    public List<Long> incomingFriendRequests() {
+        return jdbc.queryForList("SELECT from_user_id FROM friendship_request WHERE to_user_id = ?",
+                Long.class, randomUser());
+    }
+
+    private long randomUser() {
+        return 1 + ThreadLocalRandom.current().nextInt(users);
+    }
+
+    private long randomFilm() {
+        return 1 + ThreadLocalRandom.current().nextInt(films);
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность записи лайков: пара like/unlike случайного пользователя случайному фильму.
+ * minimal — режим Prefer: return=minimal без загрузки фильма для ответа.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class LikeBenchmark {
+    @Param({"100000"})
+    private int users;
+
+    @Param({"50000"})
+    private int films;
+
+    private BenchmarkDatabase database;
+    private FilmService filmService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("likes")
+                .seedUsers(users)
+                .seedFilms(films)
+                .reloadIndexes();
+        filmService = database.bean(FilmService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Film likeAndUnlike() {
+        long filmId = 1 + ThreadLocalRandom.current().nextInt(films);
+        long userId = 1 + ThreadLocalRandom.current().nextInt(users);
+        filmService.addLike(filmId, userId);
+        return filmService.deleteLikes(filmId, userId);
+    }
+
+    @Benchmark
+    public void likeAndUnlikeMinimal() {
+        long filmId = 1 + ThreadLocalRandom.current().nextInt(films);
+        long userId = 1 + ThreadLocalRandom.current().nextInt(users);
+        filmService.like(filmId, userId);
+        filmService.unlike(filmId, userId);
+    }
+}
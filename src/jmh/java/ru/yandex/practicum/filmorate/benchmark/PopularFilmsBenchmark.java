@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PopularFilmsBenchmark {
+    @Param({"1000000"})
+    private int likes;
+
+    @Param({"10", "100"})
+    private int count;
+
+    @Param({"0", "10000"})
+    private int cacheSize;
+
+    private BenchmarkDatabase database;
+    private FilmService filmService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("popular", "filmorate.cache.films.max-size=" + cacheSize)
+                .seedUsers(100_000)
+                .seedFilms(50_000)
+                .seedLikes(likes)
+                .reloadIndexes();
+        filmService = database.bean(FilmService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Film> getPopular() {
+        return filmService.getPopular(count, null, null);
+    }
+
+    @Benchmark
+    public List<Film> getPopularByGenre() {
+        return filmService.getPopular(count, 1L + ThreadLocalRandom.current().nextInt(6), null);
+    }
+
+    @Benchmark
+    public List<Film> getPopularByGenreAndYear() {
+        return filmService.getPopular(count, 1L + ThreadLocalRandom.current().nextInt(6),
+                1950 + ThreadLocalRandom.current().nextInt(75));
+    }
+}
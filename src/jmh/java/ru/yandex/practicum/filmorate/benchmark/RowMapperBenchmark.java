@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.yandex.practicum.filmorate.storage.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.storage.mappers.UserRowMapper;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость маппинга строк без обращения к базе: ResultSet строится в памяти.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+    @Param({"1000"})
+    private int rows;
+
+    private final FilmRowMapper filmRowMapper = new FilmRowMapper();
+    private final UserRowMapper userRowMapper = new UserRowMapper();
+    private SimpleResultSet films;
+    private SimpleResultSet users;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        Timestamp date = Timestamp.valueOf("2000-01-01 00:00:00");
+        films = new SimpleResultSet();
+        films.addColumn("id", Types.INTEGER, 10, 0);
+        films.addColumn("name", Types.VARCHAR, 255, 0);
+        films.addColumn("description", Types.VARCHAR, 200, 0);
+        films.addColumn("releaseDate", Types.TIMESTAMP, 0, 0);
+        films.addColumn("duration", Types.INTEGER, 10, 0);
+        films.addColumn("mpa_id", Types.INTEGER, 10, 0);
+        films.addColumn("version", Types.BIGINT, 19, 0);
+        films.addColumn("modified_at", Types.TIMESTAMP, 0, 0);
+        users = new SimpleResultSet();
+        users.addColumn("id", Types.INTEGER, 10, 0);
+        users.addColumn("email", Types.VARCHAR, 255, 0);
+        users.addColumn("login", Types.VARCHAR, 255, 0);
+        users.addColumn("name", Types.VARCHAR, 255, 0);
+        users.addColumn("birthday", Types.TIMESTAMP, 0, 0);
+        users.addColumn("version", Types.BIGINT, 19, 0);
+        users.addColumn("modified_at", Types.TIMESTAMP, 0, 0);
+        for (int i = 1; i <= rows; i++) {
+            films.addRow(i, "Фильм " + i, "Описание фильма номер " + i, date, 120, 1 + i % 5, 0L, date);
+            users.addRow(i, "user" + i + "@mail.ru", "user" + i, "User " + i, date, 0L, date);
+        }
+    }
+
+    @Benchmark
+    public void mapFilms(Blackhole blackhole) throws SQLException {
+        int row = 0;
+        while (films.next()) {
+            blackhole.consume(filmRowMapper.mapRow(films, row++));
+        }
+    }
+
+    @Benchmark
+    public void mapUsers(Blackhole blackhole) throws SQLException {
+        int row = 0;
+        while (users.next()) {
+            blackhole.consume(userRowMapper.mapRow(users, row++));
+        }
+    }
+}
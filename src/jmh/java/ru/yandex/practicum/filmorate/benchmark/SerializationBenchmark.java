@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.controller.JsonArrayWriter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Размер и стоимость сериализации страницы фильмов: полное представление против проекции и gzip.
+ * Размер ответа в байтах печатается в конце прогона, аллокации на запрос показывает профилировщик -prof gc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"100"})
+    private int films;
+
+    // пустая строка — полное представление
+    @Param({"", "id,name", "id,name,releaseDate,mpa"})
+    private String fields;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private JsonArrayWriter writer;
+    private List<Film> page;
+    private Set<String> projection;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        writer = new JsonArrayWriter(new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+        projection = fields.isEmpty() ? null : new HashSet<>(Arrays.asList(fields.split(",")));
+        page = new ArrayList<>(films);
+        for (int i = 1; i <= films; i++) {
+            Film film = new Film();
+            film.setId((long) i);
+            film.setName("Фильм " + i);
+            film.setDescription("Описание фильма номер " + i + ", достаточно длинное, чтобы занимать место в ответе");
+            film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            film.setDuration(120);
+            film.setMpa(new Mpa(1 + i % 5, "PG-13"));
+            film.setGenres(List.of(new Genre(1 + i % 6, "Комедия")));
+            page.add(film);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.printf("Размер ответа (fields=%s, gzip=%s): %d байт%n", fields, gzip, serialize());
+    }
+
+    @Benchmark
+    public long serialize() throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        if (gzip) {
+            try (OutputStream out = new GZIPOutputStream(counter)) {
+                writer.write(out, page, projection);
+            }
+        } else {
+            writer.write(counter, page, projection);
+        }
+        return counter.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
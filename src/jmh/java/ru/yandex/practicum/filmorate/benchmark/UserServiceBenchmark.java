@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+    @Param({"100000"})
+    private int users;
+
+    @Param({"50", "1000"})
+    private int friendsPerUser;
+
+    @Param({"50000"})
+    private int films;
+
+    @Param({"1000000"})
+    private int likes;
+
+    private BenchmarkDatabase database;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("users")
+                .seedUsers(users)
+                .seedFriends(friendsPerUser)
+                .seedFilms(films)
+                .seedLikes(likes)
+                .reloadIndexes();
+        userService = database.bean(UserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    private long randomUser() {
+        return 1 + ThreadLocalRandom.current().nextInt(users);
+    }
+
+    @Benchmark
+    public List<User> allFriends() {
+        return userService.allFriends(randomUser());
+    }
+
+    @Benchmark
+    public List<User> commonFriends() {
+        return userService.commonFriends(randomUser(), randomUser());
+    }
+
+    @Benchmark
+    public List<User> friendSuggestions() {
+        return userService.friendSuggestions(randomUser(), 10);
+    }
+
+    @Benchmark
+    public List<Film> recommendations() {
+        return userService.recommendations(randomUser(), 10);
+    }
+}
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.config;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Снимки базы для режима in-memory: при старте пустая база восстанавливается из последнего снимка
+ * до применения миграций, затем снимок периодически перезаписывается и сохраняется при остановке.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "filmorate.h2.snapshot.enabled", havingValue = "true")
+public class H2SnapshotConfig {
+    private final JdbcTemplate jdbc;
+    private final Path snapshot;
+
+    public H2SnapshotConfig(DataSource dataSource, @Value("${filmorate.h2.snapshot.path}") Path snapshot) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.snapshot = snapshot.toAbsolutePath();
+    }
+
+    @Bean
+    public FlywayMigrationStrategy snapshotRestoringMigrationStrategy() {
+        return flyway -> {
+            restore();
+            flyway.migrate();
+        };
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.h2.snapshot.interval}",
+            fixedDelayString = "${filmorate.h2.snapshot.interval}")
+    public void scheduledSnapshot() {
+        save();
+    }
+
+    @PreDestroy
+    public void shutdownSnapshot() {
+        save();
+    }
+
+    private void restore() {
+        Integer tables = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC'", Integer.class);
+        if (tables == null || tables > 0 || !Files.exists(snapshot)) {
+            return;
+        }
+        jdbc.execute("RUNSCRIPT FROM " + literal(snapshot) + " COMPRESSION GZIP");
+        log.info("База восстановлена из снимка {}", snapshot);
+    }
+
+    private synchronized void save() {
+        Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(snapshot.getParent());
+            jdbc.execute("SCRIPT TO " + literal(temporary) + " COMPRESSION GZIP");
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Снимок базы сохранён в {}", snapshot);
+        } catch (IOException | RuntimeException e) {
+            log.error("Не удалось сохранить снимок базы в {}", snapshot, e);
+        }
+    }
+
+    private static String literal(Path path) {
+        return "'" + path.toString().replace("'", "''") + "'";
+    }
+}
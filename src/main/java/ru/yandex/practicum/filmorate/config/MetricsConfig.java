@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlStatementCountingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? SqlStatementCounter.wrap(dataSource) : bean;
+            }
+        };
+    }
+
+    // Spring Boot применяет декоратор к applicationTaskExecutor, в котором MVC пишет тела StreamingResponseBody
+    @Bean
+    public TaskDecorator sqlStatementCounterTaskDecorator() {
+        return SqlStatementCounter::propagate;
+    }
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder filmCacheMetrics(FilmCache filmCache) {
+        return registry -> {
+            FunctionCounter.builder("filmorate.cache.films.hits", filmCache, cache -> cache.stats().hits())
+                    .register(registry);
+            FunctionCounter.builder("filmorate.cache.films.misses", filmCache, cache -> cache.stats().misses())
+                    .register(registry);
+            FunctionCounter.builder("filmorate.cache.films.evictions", filmCache, cache -> cache.stats().evictions())
+                    .register(registry);
+            Gauge.builder("filmorate.cache.films.size", filmCache, cache -> cache.stats().size())
+                    .register(registry);
+        };
+    }
+}
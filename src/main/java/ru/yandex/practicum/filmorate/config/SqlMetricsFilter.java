@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+@Component
+@RequiredArgsConstructor
+public class SqlMetricsFilter extends OncePerRequestFilter {
+    private static final String COUNTER_ATTRIBUTE = SqlMetricsFilter.class.getName() + ".counter";
+
+    private final MeterRegistry registry;
+
+    // Тела GET /films и GET /users пишутся асинхронно: итог записывается на завершающей async-диспетчеризации
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        int[] counter = (int[]) request.getAttribute(COUNTER_ATTRIBUTE);
+        if (counter == null) {
+            request.setAttribute(COUNTER_ATTRIBUTE, SqlStatementCounter.start());
+        } else {
+            SqlStatementCounter.bind(counter);
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (!isAsyncStarted(request)) {
+                record(request);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("filmorate.sql.per.request")
+                .description("Число SQL-запросов на один HTTP-запрос")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                .register(registry)
+                .record(SqlStatementCounter.current());
+    }
+}
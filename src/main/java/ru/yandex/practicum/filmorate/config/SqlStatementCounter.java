@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Считает SQL-запросы, подготовленные в текущем потоке. Каждый HTTP-запрос получает свой счётчик
+ * ({@link SqlMetricsFilter}), что позволяет видеть число запросов к базе на один вызов эндпоинта.
+ * Задачи, отправленные из потока запроса в applicationTaskExecutor (в том числе тела StreamingResponseBody),
+ * считают в тот же счётчик через {@link #propagate(Runnable)}.
+ */
+public final class SqlStatementCounter {
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "createStatement", "prepareCall");
+    private static final ThreadLocal<int[]> CURRENT = ThreadLocal.withInitial(() -> new int[1]);
+    private static final Counter TOTAL = Metrics.counter("filmorate.sql.statements");
+
+    private SqlStatementCounter() {
+    }
+
+    // Новый счётчик для текущего потока; прежний мог достаться задаче, которая ещё выполняется
+    public static int[] start() {
+        int[] counter = new int[1];
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    public static void bind(int[] counter) {
+        CURRENT.set(counter);
+    }
+
+    public static int current() {
+        return CURRENT.get()[0];
+    }
+
+    // Вызывается в потоке, отправляющем задачу: она будет считать в его счётчик
+    public static Runnable propagate(Runnable task) {
+        int[] counter = CURRENT.get();
+        return () -> {
+            int[] previous = CURRENT.get();
+            CURRENT.set(counter);
+            try {
+                task.run();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public static DataSource wrap(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return counting(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return counting(super.getConnection(username, password));
+            }
+        };
+    }
+
+    private static Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(SqlStatementCounter.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (STATEMENT_METHODS.contains(method.getName())) {
+                        CURRENT.get()[0]++;
+                        TOTAL.increment();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.EntityVersion;
+
+import java.util.Collection;
+
+/**
+ * Условные GET-запросы: версия ресурса сравнивается с If-None-Match / If-Modified-Since до загрузки
+ * и сериализации. Если ресурс не изменился, обработчик возвращает null, а Spring отвечает 304.
+ * В остальных случаях в ответ добавляются заголовки ETag и Last-Modified.
+ */
+final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    static boolean notModified(WebRequest request, EntityVersion version) {
+        String etag = "\"" + version.tag() + "\"";
+        if (version.modifiedAt() == null) {
+            return request.checkNotModified(etag);
+        }
+        return request.checkNotModified(etag, version.modifiedAt().toEpochMilli());
+    }
+
+    // Версия из If-Match для оптимистичной блокировки; null — заголовка нет или он равен «*»
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.parseLong(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Некорректный заголовок If-Match: " + ifMatch);
+        }
+    }
+
+    static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // Для небольших справочников, которые и так лежат в памяти: версия — хеш содержимого
+    static boolean notModified(WebRequest request, Collection<?> content) {
+        return notModified(request, new EntityVersion(Integer.toHexString(content.hashCode()), null));
+    }
+}
@@ -1,13 +1,26 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ImportService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @RestController
@@ -15,11 +28,30 @@ import java.util.Collection;
 @RequestMapping("/films")
 public class FilmController {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String PREFER = "Prefer";
+
     private final FilmService filmService;
+    private final NdjsonWriter ndjsonWriter;
+    private final JsonArrayWriter jsonArrayWriter;
+    private final ImportService importService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public Collection<Film> findAll() {
-        return filmService.findAll();
+    public ResponseEntity<StreamingResponseBody> findAll(@RequestParam(required = false) Long afterId,
+                                                         @RequestParam(required = false) Integer limit,
+                                                         @RequestParam(required = false) Set<String> fields) {
+        if (afterId == null && limit == null) {
+            filmService.checkFields(fields);
+            return jsonArrayWriter.array((after, size) -> filmService.findPage(after, size, fields), Film::getId, fields);
+        }
+        return jsonArrayWriter.array(filmService.findPage(afterId == null ? 0 : afterId,
+                limit == null ? DEFAULT_PAGE_SIZE : limit, fields), fields);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(defaultValue = "0") long afterId) {
+        return ndjsonWriter.stream(afterId, filmService::findPage, Film::getId);
     }
 
     @PostMapping
@@ -28,31 +60,77 @@ public class FilmController {
         return filmService.create(film);
     }
 
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ImportResult importFilms(InputStream body) throws IOException {
+        return importService.importFilms(objectMapper.readerFor(Film.class).readValues(body));
+    }
+
+    @PostMapping(value = "/likes/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ImportResult importLikes(InputStream body) throws IOException {
+        return importService.importLikes(objectMapper.readerFor(Like.class).readValues(body));
+    }
+
     @PutMapping
-    public Film update(@Valid @RequestBody Film newFilm) {
-        return filmService.update(newFilm);
+    public ResponseEntity<Film> update(@Valid @RequestBody Film newFilm,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Film film = filmService.update(newFilm, ConditionalRequests.expectedVersion(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(ConditionalRequests.etag(film.getVersion()))
+                .body(film);
     }
 
     @GetMapping("/{id}")
-    public Film getById(@PathVariable long id) {
+    public Film getById(@PathVariable long id, WebRequest request) {
+        if (ConditionalRequests.notModified(request, filmService.getVersion(id))) {
+            return null;
+        }
         return filmService.getById(id);
     }
 
 
     @PutMapping("/{id}/like/{userId}")
-    public Film addLike(@PathVariable long id, @PathVariable long userId) {
-        return filmService.addLike(id, userId);
+    public ResponseEntity<Film> addLike(@PathVariable long id, @PathVariable long userId,
+                                        @RequestHeader(value = PREFER, required = false) String prefer) {
+        if (isMinimal(prefer)) {
+            filmService.like(id, userId);
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(filmService.addLike(id, userId));
     }
 
     @DeleteMapping("/{id}/like/{userId}")
-    public Film deleteLikes(@PathVariable long id, @PathVariable long userId) {
-        return filmService.deleteLikes(id, userId);
+    public ResponseEntity<Film> deleteLikes(@PathVariable long id, @PathVariable long userId,
+                                            @RequestHeader(value = PREFER, required = false) String prefer) {
+        if (isMinimal(prefer)) {
+            filmService.unlike(id, userId);
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(filmService.deleteLikes(id, userId));
+    }
+
+    // Prefer: return=minimal (RFC 7240) — клиенту не нужен фильм в ответе, только подтверждение
+    private static boolean isMinimal(String prefer) {
+        return prefer != null && prefer.contains("return=minimal");
     }
 
 
     @GetMapping("/popular")
-    public Collection<Film> getPopular(@RequestParam int count) {
-        return filmService.getPopular(count);
+    public Collection<Film> getPopular(@RequestParam int count,
+                                       @RequestParam(required = false) Long genreId,
+                                       @RequestParam(required = false) Integer year) {
+        return filmService.getPopular(count, genreId, year);
+    }
+
+    @GetMapping("/common")
+    public List<Film> commonFilms(@RequestParam long userId, @RequestParam long friendId) {
+        return filmService.commonFilms(userId, friendId);
+    }
+
+    @GetMapping("/search")
+    public List<Film> search(@RequestParam String query,
+                             @RequestParam(defaultValue = "title,description") List<String> by,
+                             @RequestParam(defaultValue = "20") int count) {
+        return filmService.search(query, by, count);
     }
 
 }
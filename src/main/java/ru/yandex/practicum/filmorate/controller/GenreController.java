@@ -6,10 +6,12 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
 
 import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -19,13 +21,14 @@ public class GenreController {
     private final GenreService genreService;
 
     @GetMapping
-    public Collection<Genre> findAll() {
-        return genreService.findAll();
+    public Collection<Genre> findAll(WebRequest request) {
+        Collection<Genre> genres = genreService.findAll();
+        return ConditionalRequests.notModified(request, genres) ? null : genres;
     }
 
     @GetMapping("/{id}")
-    public Genre findById(@PathVariable long id) {
-
-        return genreService.findById(id);
+    public Genre findById(@PathVariable long id, WebRequest request) {
+        Genre genre = genreService.findById(id);
+        return ConditionalRequests.notModified(request, List.of(genre)) ? null : genre;
     }
 }
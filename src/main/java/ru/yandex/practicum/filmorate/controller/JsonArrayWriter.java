@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Пишет списки фильмов и пользователей JSON-массивом прямо в поток ответа, элемент за элементом.
+ * Если задан набор полей (параметр fields), сериализуются только они и id; остальные поля
+ * не читаются из базы (см. findPage с проекцией в хранилищах) и не попадают в ответ.
+ */
+@Component
+public class JsonArrayWriter {
+    private static final String PROJECTION = "projection";
+    private static final int PAGE_SIZE = 500;
+
+    private final ObjectWriter fullWriter;
+    private final ObjectMapper projectionMapper;
+
+    public JsonArrayWriter(ObjectMapper objectMapper) {
+        // Сброс буфера после каждого элемента превращает ответ в сотни мелких записей в сокет
+        this.fullWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.projectionMapper = objectMapper.copy()
+                .addMixIn(Film.class, ProjectionMixIn.class)
+                .addMixIn(User.class, ProjectionMixIn.class);
+    }
+
+    public <T> ResponseEntity<StreamingResponseBody> array(List<T> items, Set<String> fields) {
+        return ok(out -> write(out, items, fields));
+    }
+
+    // Вся таблица страницами по ключу id: в памяти одновременно не больше одной страницы
+    public <T> ResponseEntity<StreamingResponseBody> array(BiFunction<Long, Integer, List<T>> pageLoader,
+                                                           ToLongFunction<T> idExtractor, Set<String> fields) {
+        return ok(out -> {
+            ObjectWriter writer = writer(fields);
+            try (JsonGenerator generator = writer.createGenerator(out)) {
+                generator.writeStartArray();
+                long cursor = 0;
+                List<T> page;
+                do {
+                    page = pageLoader.apply(cursor, PAGE_SIZE);
+                    for (T item : page) {
+                        writer.writeValue(generator, item);
+                        cursor = idExtractor.applyAsLong(item);
+                    }
+                    generator.flush();
+                } while (page.size() == PAGE_SIZE);
+                generator.writeEndArray();
+            }
+        });
+    }
+
+    public void write(OutputStream out, List<?> items, Set<String> fields) throws IOException {
+        ObjectWriter writer = writer(fields);
+        try (JsonGenerator generator = writer.createGenerator(out)) {
+            generator.writeStartArray();
+            for (Object item : items) {
+                writer.writeValue(generator, item);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private ObjectWriter writer(Set<String> fields) {
+        if (fields == null) {
+            return fullWriter;
+        }
+        Set<String> included = new HashSet<>(fields);
+        included.add("id");
+        return projectionMapper.writer(new SimpleFilterProvider()
+                        .addFilter(PROJECTION, SimpleBeanPropertyFilter.filterOutAllExcept(included)))
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> ok(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @JsonFilter(PROJECTION)
+    private abstract static class ProjectionMixIn {
+    }
+}
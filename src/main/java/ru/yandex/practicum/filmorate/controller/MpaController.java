@@ -6,10 +6,12 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.MpaService;
 
 import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -19,13 +21,15 @@ public class MpaController {
     private final MpaService mpaService;
 
     @GetMapping
-    public Collection<Mpa> findAll() {
+    public Collection<Mpa> findAll(WebRequest request) {
         log.info("Получен HTTP-запрос по адресу /mpa (метод GET). Вызван метод getAllMpa()");
-        return mpaService.findAll();
+        Collection<Mpa> mpa = mpaService.findAll();
+        return ConditionalRequests.notModified(request, mpa) ? null : mpa;
     }
 
     @GetMapping("/{id}")
-    public Mpa findById(@PathVariable long id) {
-        return mpaService.findById(id);
+    public Mpa findById(@PathVariable long id, WebRequest request) {
+        Mpa mpa = mpaService.findById(id);
+        return ConditionalRequests.notModified(request, List.of(mpa)) ? null : mpa;
     }
 }
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Отдаёт таблицу в формате NDJSON, читая её страницами по ключу id.
+ * В памяти одновременно находится не больше одной страницы.
+ */
+@Component
+@RequiredArgsConstructor
+public class NdjsonWriter {
+    private static final int PAGE_SIZE = 500;
+
+    private final ObjectMapper objectMapper;
+
+    public <T> ResponseEntity<StreamingResponseBody> stream(long afterId,
+                                                            BiFunction<Long, Integer, List<T>> pageLoader,
+                                                            ToLongFunction<T> idExtractor) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                long cursor = afterId;
+                List<T> page;
+                do {
+                    page = pageLoader.apply(cursor, PAGE_SIZE);
+                    for (T item : page) {
+                        objectMapper.writeValue(generator, item);
+                        generator.writeRaw('\n');
+                        cursor = idExtractor.applyAsLong(item);
+                    }
+                    generator.flush();
+                } while (page.size() == PAGE_SIZE);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
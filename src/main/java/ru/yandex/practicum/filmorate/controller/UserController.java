@@ -1,14 +1,25 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ImportService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @RestController
@@ -16,11 +27,30 @@ import java.util.List;
 @RequestMapping("/users")
 public class UserController {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     private final UserService userService;
+    private final NdjsonWriter ndjsonWriter;
+    private final JsonArrayWriter jsonArrayWriter;
+    private final ImportService importService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public Collection<User> findAll() {
-        return userService.findAll();
+    public ResponseEntity<StreamingResponseBody> findAll(@RequestParam(required = false) Long afterId,
+                                                         @RequestParam(required = false) Integer limit,
+                                                         @RequestParam(required = false) Set<String> fields) {
+        if (afterId == null && limit == null) {
+            userService.checkFields(fields);
+            return jsonArrayWriter.array((after, size) -> userService.findPage(after, size, fields), User::getId,
+                    fields);
+        }
+        return jsonArrayWriter.array(userService.findPage(afterId == null ? 0 : afterId,
+                limit == null ? DEFAULT_PAGE_SIZE : limit, fields), fields);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(defaultValue = "0") long afterId) {
+        return ndjsonWriter.stream(afterId, userService::findPage, User::getId);
     }
 
     @PostMapping
@@ -28,6 +58,11 @@ public class UserController {
         return userService.create(user);
     }
 
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ImportResult importUsers(InputStream body) throws IOException {
+        return importService.importUsers(objectMapper.readerFor(User.class).readValues(body));
+    }
+
     @PutMapping
     public User update(@Valid @RequestBody User newUser) {
         return userService.update(newUser);
@@ -46,10 +81,29 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends")
-    public List<User> allFriends(@PathVariable long id) {
+    public List<User> allFriends(@PathVariable long id, WebRequest request) {
+        if (ConditionalRequests.notModified(request, userService.friendsVersion(id))) {
+            return null;
+        }
         return userService.allFriends(id);
     }
 
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> friendSuggestions(@PathVariable long id, @RequestParam(defaultValue = "10") int limit) {
+        return userService.friendSuggestions(id, limit);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public List<Film> recommendations(@PathVariable long id, @RequestParam(defaultValue = "10") int limit) {
+        return userService.recommendations(id, limit);
+    }
+
+    @GetMapping("/{id}/feed")
+    public List<Event> feed(@PathVariable long id, @RequestParam(defaultValue = "0") long afterId,
+                            @RequestParam(defaultValue = "100") int limit) {
+        return userService.feed(id, afterId, limit);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> commonFriends(@PathVariable long id, @PathVariable long otherId) {
         return userService.commonFriends(id, otherId);
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.time.Instant;
+
+/**
+ * Версия представления сущности для условных запросов. modifiedAt может отсутствовать,
+ * если у ресурса нет единого времени изменения (например, у списков).
+ */
+public record EntityVersion(String tag, Instant modifiedAt) {
+}
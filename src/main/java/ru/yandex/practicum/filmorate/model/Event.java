@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+@Data
+public class Event {
+    private Long eventId;
+    private Long userId;
+    private EventType eventType;
+    private Operation operation;
+    private Long entityId;
+    private Long timestamp;
+
+    public enum EventType {
+        LIKE, FRIEND
+    }
+
+    public enum Operation {
+        ADD, REMOVE
+    }
+}
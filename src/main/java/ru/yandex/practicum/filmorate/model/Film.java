@@ -1,11 +1,13 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 import org.springframework.lang.Nullable;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -22,4 +24,8 @@ public class Film {
     private String description;
     @Positive
     private Integer duration;
+    @JsonIgnore
+    private long version;
+    @JsonIgnore
+    private Instant modifiedAt;
 }
@@ -1,10 +1,18 @@
 package ru.yandex.practicum.filmorate.model;
 
-import lombok.Data;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
 
-@Data
+// Неизменяем: хранилище справочника отдаёт один и тот же экземпляр всем фильмам
+@Value
 public class Genre {
-    public long id;
-    public String name;
-}
+    long id;
+    String name;
 
+    @JsonCreator
+    public Genre(@JsonProperty("id") long id, @JsonProperty("name") String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
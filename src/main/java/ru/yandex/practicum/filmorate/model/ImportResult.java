@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+public record ImportResult(int total, int imported, List<Long> ids, List<ImportError> errors) {
+
+    public record ImportError(int index, String message) {
+    }
+}
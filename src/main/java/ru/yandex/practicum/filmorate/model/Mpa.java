@@ -1,10 +1,18 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
 
-import lombok.Data;
-
-@Data
+// Неизменяем: хранилище справочника отдаёт один и тот же экземпляр всем фильмам
+@Value
 public class Mpa {
-    private long id;
-    private String name;
+    long id;
+    String name;
+
+    @JsonCreator
+    public Mpa(@JsonProperty("id") long id, @JsonProperty("name") String name) {
+        this.id = id;
+        this.name = name;
+    }
 }
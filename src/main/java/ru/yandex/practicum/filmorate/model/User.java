@@ -1,10 +1,13 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Past;
 import lombok.Data;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Set;
 
@@ -12,6 +15,7 @@ import java.util.Set;
 public class User {
     private String name;
     private Long id;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private Set<Long> friends;
     @NotBlank
     @Email
@@ -20,4 +24,8 @@ public class User {
     private String login;
     @Past
     private LocalDate birthday;
+    @JsonIgnore
+    private long version;
+    @JsonIgnore
+    private Instant modifiedAt;
 }
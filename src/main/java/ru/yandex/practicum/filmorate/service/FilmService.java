@@ -1,58 +1,129 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.EntityVersion;
+import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.EventDbStorage;
 import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.LikeWriteBehindBuffer;
 import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmLikesIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.PopularFilmsIndex;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
 
+@Timed("filmorate.service")
 @Service
 @RequiredArgsConstructor
 public class FilmService {
-    private final JdbcTemplate jdbc;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final FilmDbStorage filmDbStorage;
     private final UserDbStorage userDbStorage;
+    private final LikeDbStorage likeDbStorage;
+    private final EventDbStorage eventDbStorage;
+    private final PopularFilmsIndex popularFilmsIndex;
+    private final FilmLikesIndex filmLikesIndex;
+    private final FilmSearchIndex filmSearchIndex;
+    private final Optional<LikeWriteBehindBuffer> likeWriteBehindBuffer;
 
+    @Transactional
     public Film addLike(long id, long userId) {
-        if (filmDbStorage.findById(id) == null) {
-            throw new NotFoundException("Нет фильма с id: " + id);
-        }
-        if (userDbStorage.findById(userId) == null) {
-            throw new NotFoundException("Нет пользователя с id: " + userId);
-        }
-        String sql = "INSERT INTO films_likes(film_id, user_id) VALUES(?, ?)";
-        jdbc.update(sql, id, userId);
+        like(id, userId);
         return filmDbStorage.findById(id);
     }
 
+    @Transactional
     public Film deleteLikes(long id, long userId) {
-        if (filmDbStorage.findById(id) == null) {
-            throw new NotFoundException("Нет фильма с id: " + id);
+        unlike(id, userId);
+        return filmDbStorage.findById(id);
+    }
+
+    // Существование фильма и пользователя проверяет внешний ключ films_likes: дополнительные запросы
+    // выполняются только когда вставка не прошла, чтобы вернуть понятную ошибку. При отложенной записи
+    // внешний ключ сработает уже в фоне, поэтому ссылки проверяются заранее.
+    // Событие в ленту пишется, только если лайк действительно добавлен или снят; при отложенной
+    // записи его пишет буфер вместе с пакетом. Лайк и событие фиксируются одной транзакцией:
+    // транзакция LikeDbStorage присоединяется к ней.
+    @Transactional
+    public void like(long id, long userId) {
+        if (likeWriteBehindBuffer.isPresent()) {
+            requireFilmAndUser(id, userId);
+            likeWriteBehindBuffer.get().like(id, userId);
+            return;
         }
-        if (userDbStorage.findById(userId) == null) {
-            throw new NotFoundException("Нет пользователя с id: " + userId);
+        try {
+            if (likeDbStorage.addLike(id, userId)) {
+                eventDbStorage.append(userId, Event.EventType.LIKE, Event.Operation.ADD, id);
+            }
+        } catch (DataIntegrityViolationException e) {
+            requireFilmAndUser(id, userId);
+            throw e;
+        }
+    }
+
+    @Transactional
+    public void unlike(long id, long userId) {
+        if (likeWriteBehindBuffer.isPresent()) {
+            requireFilmAndUser(id, userId);
+            likeWriteBehindBuffer.get().unlike(id, userId);
+            return;
+        }
+        if (likeDbStorage.deleteLike(id, userId)) {
+            eventDbStorage.append(userId, Event.EventType.LIKE, Event.Operation.REMOVE, id);
+        } else {
+            requireFilmAndUser(id, userId);
         }
-        String sql = "DELETE FROM films_likes WHERE film_id = ? AND user_id = ?";
-        jdbc.update(sql, id, userId);
-        return filmDbStorage.findById(id);
     }
 
     public Collection<Film> findAll() {
         return filmDbStorage.findAll();
     }
 
+    public List<Film> findPage(long afterId, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return filmDbStorage.findPage(afterId, limit);
+    }
+
+    // fields == null — полное представление, иначе проекция на перечисленные поля
+    public List<Film> findPage(long afterId, int limit, Set<String> fields) {
+        if (fields == null) {
+            return findPage(afterId, limit);
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return filmDbStorage.findPage(afterId, limit, fields);
+    }
+
+    public void checkFields(Set<String> fields) {
+        if (fields != null) {
+            filmDbStorage.checkFields(fields);
+        }
+    }
+
     public void delete(long id) {
         filmDbStorage.delete(id);
     }
 
-    public Film update(Film film) {
-        return filmDbStorage.update(film);
+    public Film update(Film film, Long expectedVersion) {
+        return filmDbStorage.update(film, expectedVersion);
     }
 
     public Film create(Film film) {
@@ -63,14 +134,39 @@ public class FilmService {
         return filmDbStorage.findById(id);
     }
 
-    public List<Film> getPopular(int count) {
-        String sql = "SELECT film_id FROM films_likes GROUP BY film_id ORDER BY COUNT(user_id) DESC LIMIT ?";
-        List<Integer> idPopularFilms = jdbc.queryForList(sql, Integer.class, count);
-        List<Film> popularFilms = new ArrayList<>();
-        for (Integer id : idPopularFilms) {
-            popularFilms.add(filmDbStorage.findById(id));
+    public EntityVersion getVersion(long id) {
+        return filmDbStorage.findVersion(id);
+    }
+
+    private void requireFilmAndUser(long id, long userId) {
+        if (!filmDbStorage.existsAll(List.of(id))) {
+            throw new NotFoundException("Нет фильма с id: " + id);
+        }
+        userDbStorage.requireExisting(userId);
+    }
+
+    public List<Film> getPopular(int count, Long genreId, Integer year) {
+        return filmDbStorage.findAllByIds(popularFilmsIndex.top(count, genreId, year));
+    }
+
+    public List<Film> commonFilms(long userId, long friendId) {
+        userDbStorage.requireExisting(userId, friendId);
+        return filmDbStorage.findAllByIds(popularFilmsIndex.rank(filmLikesIndex.commonFilmIds(userId, friendId)));
+    }
+
+    public List<Film> search(String query, List<String> by, int count) {
+        if (count <= 0 || count > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер выдачи должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        Set<FilmSearchIndex.Field> fields = EnumSet.noneOf(FilmSearchIndex.Field.class);
+        for (String field : by) {
+            switch (field.trim().toLowerCase(Locale.ROOT)) {
+                case "title" -> fields.add(FilmSearchIndex.Field.TITLE);
+                case "description" -> fields.add(FilmSearchIndex.Field.DESCRIPTION);
+                default -> throw new ValidationException("Неизвестное поле поиска: " + field);
+            }
         }
-        return popularFilms;
+        return filmDbStorage.findAllByIds(filmSearchIndex.search(query, fields, count));
     }
 
 
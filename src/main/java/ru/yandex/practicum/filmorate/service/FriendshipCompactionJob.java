@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Чистка friendship_request: ожидающая заявка имеет смысл только рядом с подтверждённой встречной
+ * записью. Строки без пары остались от прежних неатомарных записей и удаляются одним запросом.
+ * Дубли одного направления исключает первичный ключ (from_user_id, to_user_id).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendshipCompactionJob {
+    private final JdbcTemplate jdbc;
+
+    @Scheduled(initialDelayString = "${filmorate.friendship.compaction.interval}",
+            fixedDelayString = "${filmorate.friendship.compaction.interval}")
+    public void compact() {
+        int removed = jdbc.update("DELETE FROM friendship_request AS P WHERE NOT P.status " +
+                "AND NOT EXISTS (SELECT 1 FROM friendship_request AS C " +
+                "WHERE C.from_user_id = P.to_user_id AND C.to_user_id = P.from_user_id AND C.status)");
+        if (removed > 0) {
+            log.info("Удалено заявок в друзья без встречной записи: {}", removed);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.ImportResult.ImportError;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетная загрузка: элементы читаются потоком, проверяются за один проход и пишутся
+ * JDBC-батчами по CHUNK_SIZE штук, каждый батч — в своей транзакции.
+ */
+@Slf4j
+@Timed("filmorate.service")
+@Service
+@RequiredArgsConstructor
+public class ImportService {
+    private static final int CHUNK_SIZE = 1000;
+
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userDbStorage;
+    private final LikeDbStorage likeDbStorage;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+
+    public ImportResult importFilms(Iterator<Film> films) {
+        return importAll(films, filmDbStorage::validate, chunk -> new ArrayList<>(), filmDbStorage::createAll);
+    }
+
+    public ImportResult importUsers(Iterator<User> users) {
+        return importAll(users, user -> {
+        }, chunk -> new ArrayList<>(), userDbStorage::createAll);
+    }
+
+    public ImportResult importLikes(Iterator<Like> likes) {
+        return importAll(likes, like -> {
+        }, this::checkLikeReferences, chunk -> {
+            likeDbStorage.addLikes(chunk);
+            return new ArrayList<>();
+        });
+    }
+
+    private List<String> checkLikeReferences(List<Like> chunk) {
+        Set<Long> films = filmDbStorage.findExistingIds(chunk.stream().map(Like::getFilmId).collect(Collectors.toSet()));
+        Set<Long> users = userDbStorage.findExistingIds(chunk.stream().map(Like::getUserId).collect(Collectors.toSet()));
+        List<String> errors = new ArrayList<>(chunk.size());
+        for (Like like : chunk) {
+            if (!films.contains(like.getFilmId())) {
+                errors.add("Нет фильма с id: " + like.getFilmId());
+            } else if (!users.contains(like.getUserId())) {
+                errors.add("Нет пользователя с id: " + like.getUserId());
+            } else {
+                errors.add(null);
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * @param itemCheck  проверка отдельного элемента, бросает ValidationException
+     * @param chunkCheck проверка целого батча одним запросом: ошибка для каждого элемента или null; пустой
+     *                   список — проверка не нужна
+     * @param writer     сохраняет батч и возвращает id созданных записей
+     */
+    private <T> ImportResult importAll(Iterator<T> items, Consumer<T> itemCheck,
+                                       Function<List<T>, List<String>> chunkCheck,
+                                       Function<List<T>, List<Long>> writer) {
+        List<Long> ids = new ArrayList<>();
+        List<ImportError> errors = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+        List<Integer> positions = new ArrayList<>(CHUNK_SIZE);
+        int total = 0;
+        int imported = 0;
+        while (items.hasNext()) {
+            T item = items.next();
+            String error = validate(item, itemCheck);
+            if (error != null) {
+                errors.add(new ImportError(total, error));
+            } else {
+                chunk.add(item);
+                positions.add(total);
+            }
+            total++;
+            if (chunk.size() == CHUNK_SIZE) {
+                imported += flush(chunk, positions, chunkCheck, writer, ids, errors);
+            }
+        }
+        imported += flush(chunk, positions, chunkCheck, writer, ids, errors);
+        log.info("Пакетная загрузка завершена: получено {}, сохранено {}, ошибок {}", total, imported, errors.size());
+        return new ImportResult(total, imported, ids, errors);
+    }
+
+    private <T> int flush(List<T> chunk, List<Integer> positions, Function<List<T>, List<String>> chunkCheck,
+                          Function<List<T>, List<Long>> writer, List<Long> ids, List<ImportError> errors) {
+        List<String> chunkErrors = chunk.isEmpty() ? List.of() : chunkCheck.apply(chunk);
+        List<T> valid = new ArrayList<>(chunk.size());
+        List<Integer> validPositions = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            String error = chunkErrors.isEmpty() ? null : chunkErrors.get(i);
+            if (error != null) {
+                errors.add(new ImportError(positions.get(i), error));
+            } else {
+                valid.add(chunk.get(i));
+                validPositions.add(positions.get(i));
+            }
+        }
+        chunk.clear();
+        positions.clear();
+        if (valid.isEmpty()) {
+            return 0;
+        }
+        try {
+            ids.addAll(transactionTemplate.execute(status -> writer.apply(valid)));
+            return valid.size();
+        } catch (DataAccessException e) {
+            log.error("Не удалось сохранить батч из {} элементов", valid.size(), e);
+            for (Integer position : validPositions) {
+                errors.add(new ImportError(position, "Ошибка сохранения: " + e.getMostSpecificCause().getMessage()));
+            }
+            return 0;
+        }
+    }
+
+    private <T> String validate(T item, Consumer<T> itemCheck) {
+        if (item == null) {
+            return "Пустой элемент";
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(item);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        try {
+            itemCheck.accept(item);
+            return null;
+        } catch (ValidationException e) {
+            return e.getMessage();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Mpa;
@@ -7,6 +8,7 @@ import ru.yandex.practicum.filmorate.storage.MpaDbStorage;
 
 import java.util.Collection;
 
+@Timed("filmorate.service")
 @Service
 @RequiredArgsConstructor
 public class MpaService {
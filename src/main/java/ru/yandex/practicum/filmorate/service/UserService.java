@@ -1,101 +1,160 @@
 package ru.yandex.practicum.filmorate.service;
 
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.EntityVersion;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EventDbStorage;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.TransactionHooks;
 import ru.yandex.practicum.filmorate.storage.UserDbStorage;
-import ru.yandex.practicum.filmorate.storage.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.storage.index.FilmLikesIndex;
+import ru.yandex.practicum.filmorate.storage.index.FriendshipIndex;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
+@Slf4j
+@Timed("filmorate.service")
 @Service
 @RequiredArgsConstructor
 public class UserService {
+    private static final int MAX_PAGE_SIZE = 1000;
+    // подтверждение поверх ожидающей заявки повышает статус, ожидающая заявка не отменяет подтверждённую
+    private static final String FRIENDSHIP_MERGE = "MERGE INTO friendship_request AS F " +
+            "USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER), CAST(? AS BOOLEAN))) " +
+            "AS S(from_user_id, to_user_id, status) " +
+            "ON F.from_user_id = S.from_user_id AND F.to_user_id = S.to_user_id " +
+            "WHEN MATCHED AND S.status AND NOT F.status THEN UPDATE SET status = TRUE " +
+            "WHEN NOT MATCHED THEN INSERT (from_user_id, to_user_id, status) " +
+            "VALUES (S.from_user_id, S.to_user_id, S.status)";
+
     private final UserDbStorage userRepository;
     private final JdbcTemplate jdbc;
-    private final UserRowMapper mapper;
-
+    private final FriendshipIndex friendshipIndex;
+    private final FilmDbStorage filmDbStorage;
+    private final FilmLikesIndex filmLikesIndex;
+    private final EventDbStorage eventDbStorage;
+
+    /**
+     * Заявка в дружбу: подтверждённая запись id -> friendId и ожидающая встречная отправляются одним
+     * пакетом MERGE в одной транзакции, поэтому повтор запроса ничего не меняет и не дублирует событие.
+     * Изменилось ли что-то, решает статус прямой записи до MERGE, прочитанный под блокировкой обоих пользователей.
+     */
+    @Transactional
     public User addFriend(long id, long friendId) {
-
-        if (userRepository.findById(id) == null) {
-            throw new NotFoundException("Нет пользователя с id: " + id);
+        userRepository.requireExisting(id, friendId);
+        lockUsers(id, friendId);
+        List<Boolean> before = jdbc.queryForList("SELECT status FROM friendship_request " +
+                "WHERE from_user_id = ? AND to_user_id = ?", Boolean.class, id, friendId);
+        jdbc.batchUpdate(FRIENDSHIP_MERGE, List.of(new Object[]{id, friendId, true},
+                new Object[]{friendId, id, false}));
+        if (!before.contains(true)) {
+            userRepository.touch(id);
+            eventDbStorage.append(id, Event.EventType.FRIEND, Event.Operation.ADD, friendId);
+            TransactionHooks.afterCommit(() -> friendshipIndex.addFriend(id, friendId));
         }
-        if (userRepository.findById(friendId) == null) {
-            throw new NotFoundException("Нет пользователя с id: " + friendId);
-        }
-        jdbc.update("INSERT INTO friendship_request(from_user_id, to_user_id, status) " +
-                "VALUES(?, ?, ?)", id, friendId, 1);
-        jdbc.update("INSERT INTO friendship_request(from_user_id, to_user_id, status) " +
-                "VALUES(?, ?, ?)", friendId, id, 0);
-
-
         return userRepository.findById(id);
     }
 
+    @Transactional
     public User deleteUser(long id, long friendId) {
-        if (userRepository.findById(id) == null) {
-            throw new NotFoundException("Нет пользователя с id: " + id);
-        }
-        if (userRepository.findById(friendId) == null) {
-            throw new NotFoundException("Нет пользователя с id: " + friendId);
+        userRepository.requireExisting(id, friendId);
+        lockUsers(id, friendId);
+        int[] removed = jdbc.batchUpdate("DELETE FROM friendship_request WHERE from_user_id = ? AND to_user_id = ? " +
+                "AND status = ?", List.of(new Object[]{id, friendId, true}, new Object[]{friendId, id, false}));
+        if (removed[0] > 0) {
+            userRepository.touch(id);
+            eventDbStorage.append(id, Event.EventType.FRIEND, Event.Operation.REMOVE, friendId);
+            TransactionHooks.afterCommit(() -> friendshipIndex.removeFriend(id, friendId));
         }
-        jdbc.update("DELETE FROM friendship_request WHERE from_user_id = ? AND to_user_id = ? AND " +
-                "status = ?", id, friendId, 1);
-        jdbc.update("DELETE FROM friendship_request WHERE from_user_id = ? AND to_user_id = ? AND " +
-                "status = ?", friendId, id, 0);
-
-
         return userRepository.findById(id);
     }
 
-
     public List<User> commonFriends(long id, long otherId) {
-        if (userRepository.findById(id) == null) {
-            throw new NotFoundException("Нет пользователя с id: " + id);
-        }
-        if (userRepository.findById(otherId) == null) {
-            throw new NotFoundException("Нет пользователя с id: " + otherId);
-        }
+        userRepository.requireExisting(id, otherId);
 
-        String sql = "SELECT to_user_id FROM friendship_request WHERE from_user_id = ?" +
-                " INTERSECT " +
-                "SELECT to_user_id FROM friendship_request WHERE from_user_id = ?";
+        return userRepository.findAllByIds(toList(friendshipIndex.commonFriendIds(id, otherId)));
+    }
 
-        List<Long> commonFriendIds = jdbc.queryForList(sql, Long.class, id, otherId);
+    public List<User> allFriends(long userId) {
+        userRepository.requireExisting(userId);
+        return userRepository.findAllByIds(toList(friendshipIndex.friendIds(userId)));
+    }
 
-        // Получить список пользователей по их ID
-        List<User> commonFriends = new ArrayList<>();
-        for (Long friendId : commonFriendIds) {
-            User user = userRepository.findById(friendId);
-            if (user != null) {
-                commonFriends.add(user);
-            }
-        }
+    // Версия списка друзей: версия пользователя (растёт при изменении дружбы) и версии самих друзей
+    public EntityVersion friendsVersion(long userId) {
+        EntityVersion own = userRepository.findVersion(userId);
+        String friends = userRepository.findVersion(toList(friendshipIndex.friendIds(userId)));
+        return new EntityVersion(own.tag() + "-" + friends, null);
+    }
 
-        return commonFriends;
+    public List<User> friendSuggestions(long userId, int limit) {
+        userRepository.requireExisting(userId);
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Количество рекомендаций должно быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return userRepository.findAllByIds(toList(friendshipIndex.suggestions(userId, limit)));
     }
 
-    public List<User> allFriends(long userId) {
-        if (userRepository.findById(userId) == null) {
-            throw new NotFoundException("Нет пользователя с id: " + userId);
+    public List<Film> recommendations(long userId, int limit) {
+        userRepository.requireExisting(userId);
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Количество рекомендаций должно быть от 1 до " + MAX_PAGE_SIZE);
         }
-        String sql = "SELECT U.* FROM friendship_request AS F JOIN USERS AS U ON F.to_user_id = U.id WHERE F.from_user_id = ? AND F.status = true";
-        List<User> usersList = jdbc.query(sql, mapper, userId);
+        return filmDbStorage.findAllByIds(toList(filmLikesIndex.recommendations(userId, limit)));
+    }
 
-        return usersList;
+    public List<Event> feed(long userId, long afterId, int limit) {
+        userRepository.requireExisting(userId);
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return eventDbStorage.findPage(userId, afterId, limit);
     }
 
     public Collection<User> findAll() {
         return userRepository.findAll();
     }
 
+    public List<User> findPage(long afterId, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return userRepository.findPage(afterId, limit);
+    }
+
+    // fields == null — полное представление, иначе проекция на перечисленные поля
+    public List<User> findPage(long afterId, int limit, Set<String> fields) {
+        if (fields == null) {
+            return findPage(afterId, limit);
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return userRepository.findPage(afterId, limit, fields);
+    }
+
+    public void checkFields(Set<String> fields) {
+        if (fields != null) {
+            userRepository.checkFields(fields);
+        }
+    }
+
     public void delete(long id) {
         userRepository.delete(id);
+        friendshipIndex.removeUser(id);
+        filmLikesIndex.removeUser(id);
     }
 
     public User update(User newUser) {
@@ -106,5 +165,14 @@ public class UserService {
         return userRepository.create(user);
     }
 
+    private static List<Long> toList(long[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
 
+    // Все записи пары (id, friendId) в обе стороны идут под блокировкой обоих пользователей, взятой по
+    // возрастанию id: встречные запросы выполняются по очереди и не ловят DuplicateKeyException на MERGE
+    private void lockUsers(long id, long friendId) {
+        jdbc.queryForList("SELECT id FROM users WHERE id IN (?, ?) ORDER BY id FOR UPDATE", Long.class,
+                id, friendId);
+    }
 }
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.mappers.EventRowMapper;
+
+import java.util.List;
+
+/**
+ * Журнал событий только на добавление: записи не изменяются, порядок задаёт id.
+ */
+@Slf4j
+@Timed("filmorate.storage")
+@Repository
+@RequiredArgsConstructor
+public class EventDbStorage implements EventStorage {
+    private final JdbcTemplate jdbc;
+    private final EventRowMapper mapper;
+
+    public void append(long userId, Event.EventType eventType, Event.Operation operation, long entityId) {
+        jdbc.update("INSERT INTO events(user_id, event_type, operation, entity_id) VALUES (?, ?, ?, ?)",
+                userId, eventType.name(), operation.name(), entityId);
+        log.debug("Событие {} {} пользователя {}: {}", eventType, operation, userId, entityId);
+    }
+
+    // Пакетная запись: события отложенных лайков пишутся вместе с пакетом лайков
+    public void appendAll(List<Event> events) {
+        jdbc.batchUpdate("INSERT INTO events(user_id, event_type, operation, entity_id) VALUES (?, ?, ?, ?)",
+                events, events.size(), (ps, event) -> {
+                    ps.setLong(1, event.getUserId());
+                    ps.setString(2, event.getEventType().name());
+                    ps.setString(3, event.getOperation().name());
+                    ps.setLong(4, event.getEntityId());
+                });
+        log.debug("Записано событий пакетом: {}", events.size());
+    }
+
+    public List<Event> findPage(long userId, long afterId, int limit) {
+        return jdbc.query("SELECT * FROM events WHERE user_id = ? AND id > ? ORDER BY id LIMIT ?",
+                mapper, userId, afterId, limit);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Event;
+
+import java.util.List;
+
+public interface EventStorage {
+
+    public void append(long userId, Event.EventType eventType, Event.Operation operation, long entityId);
+
+    public void appendAll(List<Event> events);
+
+    public List<Event> findPage(long userId, long afterId, int limit);
+}
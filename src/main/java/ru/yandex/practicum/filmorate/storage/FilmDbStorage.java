@@ -1,154 +1,449 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.PreconditionFailedException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.EntityVersion;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
+import ru.yandex.practicum.filmorate.storage.index.FilmLikesIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.IdBitSet;
+import ru.yandex.practicum.filmorate.storage.index.PopularFilmsIndex;
 import ru.yandex.practicum.filmorate.storage.mappers.FilmRowMapper;
-import ru.yandex.practicum.filmorate.storage.mappers.GenreRowMapper;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Slf4j
+@Timed("filmorate.storage")
 @Repository
 @RequiredArgsConstructor
 public class FilmDbStorage implements FilmStorage {
+    private static final String FILM_QUERY = "SELECT * FROM films AS F";
+    private static final String INSERT_QUERY = "INSERT INTO films(name, description, releaseDate, duration, mpa_id) " +
+            "VALUES (:name, :description, :releaseDate, :duration, :mpa_id)";
+    private static final String GENRE_QUERY = "SELECT DISTINCT film_id, genre_id FROM films_genre";
+
+    private static final Set<String> FIELDS = Set.of("id", "name", "description", "releaseDate", "duration",
+            "mpa", "genres");
+    // Поля проекции, хранящиеся в колонках films; жанры лежат в films_genre
+    private static final Map<String, String> FIELD_COLUMNS = Map.of("name", "name", "description", "description",
+            "releaseDate", "releaseDate", "duration", "duration", "mpa", "mpa_id");
+
     private final JdbcTemplate jdbc;
     private final NamedParameterJdbcOperations jdbcOperations;
     private final FilmRowMapper mapper;
     private final MpaDbStorage mpaDbStorage;
     private final GenreDbStorage genreDbStorage;
-    private final GenreRowMapper genreRowMapper;
+    private final PopularFilmsIndex popularFilmsIndex;
+    private final FilmLikesIndex filmLikesIndex;
+    private final FilmSearchIndex filmSearchIndex;
+    private final FilmCache filmCache;
+    private final IdBitSet knownIds = new IdBitSet();
+
+    @PostConstruct
+    public void loadIds() {
+        knownIds.clear();
+        jdbc.query("SELECT id FROM films", (RowCallbackHandler) rs -> knownIds.add(rs.getLong(1)));
+    }
 
     public List<Film> findAll() {
-        String query = "SELECT * FROM films";
-        return jdbc.query(query, mapper);
+        List<Film> films = jdbc.query(FILM_QUERY, mapper);
+        Map<Long, List<Genre>> genres = new HashMap<>();
+        jdbc.query(GENRE_QUERY + " ORDER BY genre_id", rs -> {
+            genres.computeIfAbsent(rs.getLong("film_id"), filmId -> new ArrayList<>())
+                    .add(genreDbStorage.findById(rs.getLong("genre_id")));
+        });
+        for (Film film : films) {
+            resolveMpa(film);
+            film.setGenres(genres.getOrDefault(film.getId(), new ArrayList<>()));
+        }
+        return films;
     }
 
-    public Film create(Film film) {
-        log.info("Создание нового фильма: {}", film);
-        if (film.getReleaseDate() != null && film.getReleaseDate().isBefore(LocalDate.parse("1895-12-28"))) {
-            log.error("Некорректная дата выхода: {}", film.getReleaseDate());
-            throw new ValidationException("Дата релиза — не раньше 28 декабря 1895 года");
+    public List<Film> findAllByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
         }
-        if ((film.getMpa().getId()) > 5) {
-            throw new ValidationException("Mpa неверный");
+        Map<Long, Film> films = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Film film = filmCache.get(id);
+            if (film != null) {
+                films.put(id, film);
+            } else {
+                missing.add(id);
+            }
         }
-        if (film.getGenres() != null) {
-            for (Genre genre : film.getGenres()) {
-                if ((genre.getId()) > 6) {
-                    throw new ValidationException("Жанр неверный");
-                }
+
+        if (!missing.isEmpty()) {
+            long stamp = filmCache.stamp();
+            MapSqlParameterSource params = new MapSqlParameterSource("ids", missing);
+            Map<Long, Film> loaded = new HashMap<>();
+            for (Film film : jdbcOperations.query(FILM_QUERY + " WHERE F.id IN (:ids)", params, mapper)) {
+                loaded.put(film.getId(), film);
+            }
+            hydrate(loaded);
+            filmCache.putAll(loaded.values(), stamp);
+            films.putAll(loaded);
+        }
+
+        List<Film> result = new ArrayList<>(films.size());
+        for (Long id : ids) {
+            Film film = films.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(jdbcOperations.queryForList("SELECT id FROM films WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), Long.class));
+    }
+
+    /**
+     * Существуют ли все фильмы: id, которых нет в битовой карте, отсекаются без обращения к базе,
+     * остальные подтверждаются одним запросом.
+     */
+    public boolean existsAll(Collection<Long> ids) {
+        Set<Long> distinct = new HashSet<>(ids);
+        for (Long id : distinct) {
+            if (!knownIds.mightContain(id)) {
+                return false;
+            }
+        }
+        if (distinct.isEmpty()) {
+            return true;
+        }
+        Integer found = jdbcOperations.queryForObject("SELECT COUNT(*) FROM films WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", distinct), Integer.class);
+        return found != null && found == distinct.size();
+    }
+
+    public List<Film> findPage(long afterId, int limit) {
+        List<Film> page = jdbc.query(FILM_QUERY + " WHERE F.id > ? ORDER BY F.id LIMIT ?", mapper, afterId, limit);
+        Map<Long, Film> films = new HashMap<>();
+        for (Film film : page) {
+            films.put(film.getId(), film);
+        }
+        hydrate(films);
+        return page;
+    }
+
+    /**
+     * Страница с проекцией: из films читаются только колонки запрошенных полей,
+     * справочник MPA и жанры подгружаются, только если они запрошены.
+     */
+    public List<Film> findPage(long afterId, int limit, Set<String> fields) {
+        checkFields(fields);
+        StringBuilder columns = new StringBuilder("id");
+        FIELD_COLUMNS.forEach((field, column) -> {
+            if (fields.contains(field)) {
+                columns.append(", ").append(column);
+            }
+        });
+        List<Film> page = jdbc.query("SELECT " + columns + " FROM films WHERE id > ? ORDER BY id LIMIT ?",
+                mapper.projection(fields), afterId, limit);
+        if (fields.contains("mpa")) {
+            page.forEach(this::resolveMpa);
+        }
+        if (fields.contains("genres")) {
+            Map<Long, Film> films = new HashMap<>();
+            for (Film film : page) {
+                films.put(film.getId(), film);
             }
+            loadGenres(films);
         }
+        return page;
+    }
+
+    public void checkFields(Set<String> fields) {
+        for (String field : fields) {
+            if (!FIELDS.contains(field)) {
+                throw new ValidationException("Неизвестное поле фильма: " + field);
+            }
+        }
+    }
+
+    public Film create(Film film) {
+        log.info("Создание нового фильма: {}", film);
+        validate(film);
 
 
         KeyHolder keyHolder = new GeneratedKeyHolder();
-        MapSqlParameterSource map = new MapSqlParameterSource();
-        map.addValue("name", film.getName());
-        map.addValue("description", film.getDescription());
-        map.addValue("releaseDate", film.getReleaseDate());
-        map.addValue("duration", film.getDuration());
-        map.addValue("mpa_id", film.getMpa().getId());
-        jdbcOperations.update(
-                "INSERT INTO films(name, description, releaseDate, duration, mpa_id) VALUES (:name, :description, :releaseDate, :duration, :mpa_id)", map, keyHolder);
+        jdbcOperations.update(INSERT_QUERY, filmParams(film), keyHolder, new String[]{"id"});
 
         log.info("Фильм {} сохранен", film);
 
         film.setId(keyHolder.getKey().longValue());
+        knownIds.add(film.getId());
 
-        if (film.getGenres() != null) {
-            List<Genre> genreList = film.getGenres();
-            jdbc.batchUpdate("INSERT INTO films_genre(film_id, genre_id) VALUES(?, ?)", new BatchPreparedStatementSetter() {
-                @Override
-                public void setValues(PreparedStatement preparedStatement, int i) throws SQLException {
-                    preparedStatement.setLong(1, film.getId());
-                    preparedStatement.setLong(2, genreList.get(i).getId());
-                }
+        saveGenres(film.getId(), film.getGenres());
+        indexFilm(film);
 
-                @Override
-                public int getBatchSize() {
-                    return genreList.size();
-                }
-            });
+
+        return film;
+    }
+
+    public List<Long> createAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return new ArrayList<>();
         }
+        SqlParameterSource[] batch = films.stream().map(this::filmParams).toArray(SqlParameterSource[]::new);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcOperations.batchUpdate(INSERT_QUERY, batch, keyHolder, new String[]{"id"});
 
+        List<Long> ids = new ArrayList<>(films.size());
+        List<Object[]> genreRows = new ArrayList<>();
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            film.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            ids.add(film.getId());
+            if (film.getGenres() != null) {
+                for (Long genreId : new LinkedHashSet<>(film.getGenres().stream().map(Genre::getId).toList())) {
+                    genreRows.add(new Object[]{film.getId(), genreId});
+                }
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO films_genre(film_id, genre_id) VALUES(?, ?)", genreRows);
+        // Батч пишется в транзакции импорта; при её откате индексы не должны знать об этих фильмах
+        TransactionHooks.afterCommit(() -> {
+            for (Film film : films) {
+                knownIds.add(film.getId());
+                indexFilm(film);
+            }
+        });
+        log.info("Сохранено фильмов пакетом: {}", ids.size());
+        return ids;
+    }
 
-        return film;
+    public void validate(Film film) {
+        if (film.getReleaseDate() != null && film.getReleaseDate().isBefore(LocalDate.parse("1895-12-28"))) {
+            log.error("Некорректная дата выхода: {}", film.getReleaseDate());
+            throw new ValidationException("Дата релиза — не раньше 28 декабря 1895 года");
+        }
+        validateReferences(film);
     }
 
+    // Вызов update(Film, Long) изнутри класса минует прокси, поэтому транзакцию открывает этот метод
+    @Transactional
     public Film update(Film newFilm) {
+        return update(newFilm, null);
+    }
 
+    /**
+     * Обновление фильма одной транзакцией. Если передана ожидаемая версия (If-Match), фильм обновляется,
+     * только пока его версия не изменилась, иначе — PreconditionFailedException. Жанры не пересоздаются:
+     * удаляются и добавляются только изменившиеся строки films_genre. UPDATE идёт первым и блокирует строку
+     * фильма, поэтому параллельные обновления одного фильма выполняются по очереди.
+     */
+    @Transactional
+    public Film update(Film newFilm, Long expectedVersion) {
         if (newFilm.getId() == null) {
             log.error("Нет id");
             throw new ValidationException("Id должен быть указан");
         }
-        if (jdbc.query("SELECT * FROM films WHERE ID = ?", mapper, newFilm.getId()).isEmpty()) {
-            log.error("Нет фильма с данным id: {}", newFilm.getId());
-            throw new NotFoundException("Фильм с id = " + newFilm.getId() + " не найден");
+        validate(newFilm);
+        long id = newFilm.getId();
 
+        String sql = "UPDATE FILMS SET NAME = ?, releaseDate = ?, DESCRIPTION = ?, MPA_ID = ?, DURATION = ?, " +
+                "version = version + 1, modified_at = CURRENT_TIMESTAMP WHERE ID = ?";
+        int updated;
+        try {
+            updated = expectedVersion == null
+                    ? jdbc.update(sql, newFilm.getName(), newFilm.getReleaseDate(), newFilm.getDescription(),
+                            newFilm.getMpa().getId(), newFilm.getDuration(), id)
+                    : jdbc.update(sql + " AND version = ?", newFilm.getName(), newFilm.getReleaseDate(),
+                            newFilm.getDescription(), newFilm.getMpa().getId(), newFilm.getDuration(), id,
+                            expectedVersion);
+        } catch (ConcurrencyFailureException e) {
+            if (expectedVersion == null) {
+                throw e;
+            }
+            throw new PreconditionFailedException("Фильм с id = " + id + " изменяется параллельно");
         }
-
-        if (newFilm.getReleaseDate() != null && newFilm.getReleaseDate().isBefore(LocalDate.parse("1895-12-28"))) {
-            log.error("Некорректная дата выхода: {}", newFilm.getReleaseDate());
-            throw new ValidationException("Дата релиза — не раньше 28 декабря 1895 года");
+        if (updated == 0) {
+            if (!existsAll(List.of(id))) {
+                log.error("Нет фильма с данным id: {}", id);
+                throw new NotFoundException("Фильм с id = " + id + " не найден");
+            }
+            log.warn("Фильм {} изменён другим запросом, ожидалась версия {}", id, expectedVersion);
+            throw new PreconditionFailedException("Фильм с id = " + id + " изменён, ожидалась версия " +
+                    expectedVersion);
         }
-        System.out.println(newFilm.getId());
-        String sql = "UPDATE FILMS SET NAME = ?, releaseDate = ?, DESCRIPTION = ?, MPA_ID = ?, DURATION = ? WHERE ID = ?";
-
-        jdbc.update(sql, newFilm.getName(), newFilm.getReleaseDate(), newFilm.getDescription(), newFilm.getMpa().getId(), newFilm.getDuration(), newFilm.getId());
-        jdbc.update("DELETE FROM films_genre WHERE film_id = ?", newFilm.getId());
-        if (newFilm.getGenres() != null) {
-            List<Genre> genreList = newFilm.getGenres();
-            jdbc.batchUpdate("INSERT INTO films_genre(film_id, genre_id) VALUES(?, ?)", new BatchPreparedStatementSetter() {
-                @Override
-                public void setValues(PreparedStatement preparedStatement, int i) throws SQLException {
-                    preparedStatement.setLong(1, newFilm.getId());
-                    preparedStatement.setLong(2, genreList.get(i).getId());
-                }
 
-                @Override
-                public int getBatchSize() {
-                    return genreList.size();
-                }
-            });
+        Set<Long> current = new HashSet<>(jdbc.queryForList("SELECT genre_id FROM films_genre WHERE film_id = ?",
+                Long.class, id));
+        Set<Long> requested = newFilm.getGenres() == null ? new LinkedHashSet<>()
+                : new LinkedHashSet<>(newFilm.getGenres().stream().map(Genre::getId).toList());
+        List<Object[]> removed = current.stream()
+                .filter(genreId -> !requested.contains(genreId))
+                .map(genreId -> new Object[]{id, genreId})
+                .toList();
+        List<Object[]> added = requested.stream()
+                .filter(genreId -> !current.contains(genreId))
+                .map(genreId -> new Object[]{id, genreId})
+                .toList();
+        if (!removed.isEmpty()) {
+            jdbc.batchUpdate("DELETE FROM films_genre WHERE film_id = ? AND genre_id = ?", removed);
+        }
+        if (!added.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO films_genre(film_id, genre_id) VALUES(?, ?)", added);
         }
 
+        // Кэш сбрасывается и сейчас, чтобы ответ собрался из новых данных, и после фиксации, чтобы
+        // убрать старую версию, которую мог закэшировать параллельный читатель до неё
+        filmCache.invalidate(id);
+        TransactionHooks.afterCommit(() -> {
+            filmCache.invalidate(id);
+            indexFilm(newFilm);
+        });
         log.info("Фильм обновлен: {}", newFilm);
-        return jdbc.queryForObject("SELECT * FROM films WHERE ID = ?", mapper, newFilm.getId());
-
+        return findById(id);
     }
 
     public void delete(long id) {
-        if (!jdbc.query("SELECT * FROM films WHERE ID = ?", mapper, id).isEmpty()) {
-            jdbc.update("DELETE FROM films WHERE ID = ?", id);
+        if (jdbc.update("DELETE FROM films WHERE ID = ?", id) > 0) {
+            popularFilmsIndex.remove(id);
+            filmLikesIndex.removeFilm(id);
+            filmSearchIndex.removeFilm(id);
+            filmCache.invalidate(id);
         }
     }
 
     public Film findById(long id) {
+        List<Film> films = findAllByIds(List.of(id));
+        if (films.isEmpty()) {
+            throw new NotFoundException("Нет фильма с id: " + id);
+        }
+        return films.get(0);
+    }
 
-        final List<Film> films = jdbc.query("SELECT * FROM films WHERE ID = ?", mapper, id);
-        if (films.size() != 1) {
-            throw new NotFoundException("film id=" + id);
+    // Версия берётся из кэша, если фильм уже загружен, иначе читается одна строка без жанров
+    public EntityVersion findVersion(long id) {
+        Film cached = filmCache.get(id);
+        if (cached != null) {
+            return new EntityVersion(String.valueOf(cached.getVersion()), cached.getModifiedAt());
         }
-        Film film = films.get(0);
-        film.setMpa(mpaDbStorage.findById(film.getMpa().getId()));
-        String sql = "SELECT G.* FROM films_genre AS F JOIN genre AS G ON F.genre_id = G.id WHERE F.film_id = ? GROUP BY G.id";
-        List<Genre> genreList = jdbc.query(sql, genreRowMapper, id);
-        film.setGenres(genreList);
-        return film;
+        List<EntityVersion> versions = jdbc.query("SELECT version, modified_at FROM films WHERE id = ?",
+                (rs, rowNum) -> new EntityVersion(String.valueOf(rs.getLong("version")),
+                        rs.getTimestamp("modified_at").toInstant()), id);
+        if (versions.isEmpty()) {
+            throw new NotFoundException("Нет фильма с id: " + id);
+        }
+        return versions.get(0);
+    }
 
+    private void hydrate(Map<Long, Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        for (Film film : films.values()) {
+            resolveMpa(film);
+        }
+        loadGenres(films);
     }
+
+    private void loadGenres(Map<Long, Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        for (Film film : films.values()) {
+            film.setGenres(new ArrayList<>());
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", films.keySet());
+        jdbcOperations.query(GENRE_QUERY + " WHERE film_id IN (:ids) ORDER BY genre_id", params, rs -> {
+            films.get(rs.getLong("film_id")).getGenres().add(genreDbStorage.findById(rs.getLong("genre_id")));
+        });
+    }
+
+    private void resolveMpa(Film film) {
+        if (film.getMpa() != null && mpaDbStorage.exists(film.getMpa().getId())) {
+            film.setMpa(mpaDbStorage.findById(film.getMpa().getId()));
+        }
+    }
+
+    private MapSqlParameterSource filmParams(Film film) {
+        MapSqlParameterSource map = new MapSqlParameterSource();
+        map.addValue("name", film.getName());
+        map.addValue("description", film.getDescription());
+        map.addValue("releaseDate", film.getReleaseDate());
+        map.addValue("duration", film.getDuration());
+        map.addValue("mpa_id", film.getMpa().getId());
+        return map;
+    }
+
+    private void validateReferences(Film film) {
+        if (film.getMpa() == null || !mpaDbStorage.exists(film.getMpa().getId())) {
+            throw new ValidationException("Mpa неверный");
+        }
+        if (film.getGenres() != null) {
+            for (Genre genre : film.getGenres()) {
+                if (!genreDbStorage.exists(genre.getId())) {
+                    throw new ValidationException("Жанр неверный");
+                }
+            }
+        }
+    }
+
+    private void saveGenres(long filmId, List<Genre> genres) {
+        if (genres == null || genres.isEmpty()) {
+            return;
+        }
+        // Повторы жанров в запросе нарушили бы первичный ключ films_genre
+        List<Long> genreIds = new ArrayList<>(new LinkedHashSet<>(genres.stream().map(Genre::getId).toList()));
+        jdbc.batchUpdate("INSERT INTO films_genre(film_id, genre_id) VALUES(?, ?)", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement preparedStatement, int i) throws SQLException {
+                preparedStatement.setLong(1, filmId);
+                preparedStatement.setLong(2, genreIds.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return genreIds.size();
+            }
+        });
+    }
+
+    // Поиск и рейтинги по жанру и году строятся по полям фильма, поэтому обновляются при каждой записи
+    private void indexFilm(Film film) {
+        filmSearchIndex.index(film.getId(), film.getName(), film.getDescription());
+        popularFilmsIndex.describe(film.getId(), film.getReleaseDate(), film.getGenres() == null
+                ? List.of()
+                : film.getGenres().stream().map(Genre::getId).toList());
+    }
+
 }
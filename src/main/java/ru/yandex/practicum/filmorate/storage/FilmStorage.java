@@ -3,6 +3,9 @@ package ru.yandex.practicum.filmorate.storage;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
 
+import java.util.Collection;
+import java.util.List;
+
 @Component
 public interface FilmStorage {
     public Film create(Film film);
@@ -11,4 +14,8 @@ public interface FilmStorage {
 
     public void delete(long id);
 
+    public List<Film> findAllByIds(Collection<Long> ids);
+
+    public boolean existsAll(Collection<Long> ids);
+
 }
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -19,16 +20,37 @@ public class GenreDbStorage implements GenreStorage {
     private final JdbcTemplate jdbc;
     private final GenreRowMapper mapper;
 
+    // Справочник жанров неизменяем между вызовами refresh(), поэтому читается без запросов к базе;
+    // жанры неизменяемы, поэтому все фильмы получают одни и те же экземпляры без копирования
+    private volatile Genre[] genresById = new Genre[0];
+    private volatile List<Genre> genres = List.of();
+
+    @PostConstruct
+    public void refresh() {
+        List<Genre> loaded = jdbc.query("SELECT * FROM genre ORDER BY id", mapper);
+        Genre[] index = new Genre[loaded.isEmpty() ? 0 : (int) loaded.get(loaded.size() - 1).getId() + 1];
+        for (Genre genre : loaded) {
+            index[(int) genre.getId()] = genre;
+        }
+        genresById = index;
+        genres = List.copyOf(loaded);
+        log.info("Справочник жанров загружен: {} записей", loaded.size());
+    }
+
     public List<Genre> findAll() {
-        String query = "SELECT * FROM genre";
-        return jdbc.query(query, mapper);
+        return genres;
     }
 
     public Genre findById(long id) {
-        if (jdbc.query("SELECT * FROM genre WHERE ID = ?", mapper, id).isEmpty()) {
+        Genre[] index = genresById;
+        if (id < 0 || id >= index.length || index[(int) id] == null) {
             throw new NotFoundException("Жанр с id = " + id + " не найден");
         }
-        return jdbc.query("SELECT * FROM genre WHERE ID = ?", mapper, id).get(0);
+        return index[(int) id];
+    }
 
+    public boolean exists(long id) {
+        Genre[] index = genresById;
+        return id >= 0 && id < index.length && index[(int) id] != null;
     }
 }
@@ -10,4 +10,8 @@ public interface GenreStorage {
     public List<Genre> findAll();
 
     public Genre findById(long id);
+
+    public boolean exists(long id);
+
+    public void refresh();
 }
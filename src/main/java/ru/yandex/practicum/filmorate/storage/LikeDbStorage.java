@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.index.FilmLikesIndex;
+import ru.yandex.practicum.filmorate.storage.index.PopularFilmsIndex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Timed("filmorate.storage")
+@Repository
+@RequiredArgsConstructor
+public class LikeDbStorage implements LikeStorage {
+    private static final String MERGE_QUERY = "MERGE INTO films_likes AS L " +
+            "USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER))) AS S(film_id, user_id) " +
+            "ON L.film_id = S.film_id AND L.user_id = S.user_id " +
+            "WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (S.film_id, S.user_id)";
+
+    private final JdbcTemplate jdbc;
+    private final PopularFilmsIndex popularFilmsIndex;
+    private final FilmLikesIndex filmLikesIndex;
+
+    @Transactional
+    public boolean addLike(long filmId, long userId) {
+        if (jdbc.update(MERGE_QUERY, filmId, userId) == 0) {
+            log.info("Пользователь {} уже ставил лайк фильму {}", userId, filmId);
+            return false;
+        }
+        jdbc.update("UPDATE films SET likes_count = likes_count + 1 WHERE id = ?", filmId);
+        TransactionHooks.afterCommit(() -> {
+            popularFilmsIndex.changeLikes(filmId, 1);
+            filmLikesIndex.addLike(filmId, userId);
+        });
+        log.info("Пользователь {} поставил лайк фильму {}", userId, filmId);
+        return true;
+    }
+
+    // Возвращает лайки, которых ещё не было
+    @Transactional
+    public List<Like> addLikes(List<Like> likes) {
+        int[][] counts = jdbc.batchUpdate(MERGE_QUERY, likes, likes.size(), (ps, like) -> {
+            ps.setLong(1, like.getFilmId());
+            ps.setLong(2, like.getUserId());
+        });
+        Map<Long, Integer> deltas = new HashMap<>();
+        List<Like> added = new ArrayList<>();
+        int position = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                Like like = likes.get(position++);
+                if (count > 0) {
+                    deltas.merge(like.getFilmId(), 1, Integer::sum);
+                    added.add(like);
+                }
+            }
+        }
+        jdbc.batchUpdate("UPDATE films SET likes_count = likes_count + ? WHERE id = ?", deltas.entrySet(),
+                deltas.size(), (ps, delta) -> {
+                    ps.setInt(1, delta.getValue());
+                    ps.setLong(2, delta.getKey());
+                });
+        TransactionHooks.afterCommit(() -> {
+            deltas.forEach(popularFilmsIndex::changeLikes);
+            added.forEach(like -> filmLikesIndex.addLike(like.getFilmId(), like.getUserId()));
+        });
+        log.info("Сохранено лайков пакетом: {} из {}", added.size(), likes.size());
+        return added;
+    }
+
+    // Возвращает лайки, которые действительно были сняты
+    @Transactional
+    public List<Like> deleteLikes(List<Like> likes) {
+        int[][] counts = jdbc.batchUpdate("DELETE FROM films_likes WHERE film_id = ? AND user_id = ?", likes,
+                likes.size(), (ps, like) -> {
+                    ps.setLong(1, like.getFilmId());
+                    ps.setLong(2, like.getUserId());
+                });
+        Map<Long, Integer> deltas = new HashMap<>();
+        List<Like> removed = new ArrayList<>();
+        int position = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                Like like = likes.get(position++);
+                if (count > 0) {
+                    deltas.merge(like.getFilmId(), -count, Integer::sum);
+                    removed.add(like);
+                }
+            }
+        }
+        jdbc.batchUpdate("UPDATE films SET likes_count = likes_count + ? WHERE id = ?", deltas.entrySet(),
+                deltas.size(), (ps, delta) -> {
+                    ps.setInt(1, delta.getValue());
+                    ps.setLong(2, delta.getKey());
+                });
+        TransactionHooks.afterCommit(() -> {
+            deltas.forEach(popularFilmsIndex::changeLikes);
+            removed.forEach(like -> filmLikesIndex.removeLike(like.getFilmId(), like.getUserId()));
+        });
+        log.info("Удалено лайков пакетом: {} из {}", removed.size(), likes.size());
+        return removed;
+    }
+
+    @Transactional
+    public boolean deleteLike(long filmId, long userId) {
+        int deleted = jdbc.update("DELETE FROM films_likes WHERE film_id = ? AND user_id = ?", filmId, userId);
+        if (deleted == 0) {
+            return false;
+        }
+        jdbc.update("UPDATE films SET likes_count = likes_count - ? WHERE id = ?", deleted, filmId);
+        TransactionHooks.afterCommit(() -> {
+            popularFilmsIndex.changeLikes(filmId, -deleted);
+            filmLikesIndex.removeLike(filmId, userId);
+        });
+        log.info("Пользователь {} убрал лайк у фильма {}", userId, filmId);
+        return true;
+    }
+}
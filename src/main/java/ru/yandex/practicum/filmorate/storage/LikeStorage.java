@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.util.List;
+
+public interface LikeStorage {
+
+    public boolean addLike(long filmId, long userId);
+
+    public List<Like> addLikes(List<Like> likes);
+
+    public List<Like> deleteLikes(List<Like> likes);
+
+    public boolean deleteLike(long filmId, long userId);
+}
@@ -0,0 +1,247 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Отложенная запись лайков: операции принимаются в ограниченный буфер и сбрасываются в films_likes
+ * фоновым потоком пакетами. Повторные операции над одной парой (фильм, пользователь) схлопываются —
+ * в базу попадает только последняя. При переполнении буфера запрос ждёт offer-timeout и получает 503.
+ * При остановке приложения буфер дописывается до конца. Если пакет откатился из-за ссылки на уже
+ * удалённый фильм или пользователя, он записывается по одной операции и теряются только такие строки.
+ * События ленты пишутся в той же транзакции, что и пакет, и только для строк, которые изменились в базе.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.likes.write-behind.enabled", havingValue = "true")
+public class LikeWriteBehindBuffer implements SmartLifecycle {
+    // Останавливается после веб-сервера, чтобы принять последние запросы и дописать их в базу
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final LikeDbStorage likeDbStorage;
+    private final EventDbStorage eventDbStorage;
+    private final TransactionOperations transactions;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutNanos;
+    private final Map<Key, Boolean> pending = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushRequested = lock.newCondition();
+    private final Counter flushed;
+    private final Counter rejected;
+    private final Counter dropped;
+    private volatile boolean running;
+    private Thread writer;
+
+    public LikeWriteBehindBuffer(LikeDbStorage likeDbStorage, EventDbStorage eventDbStorage,
+                                 TransactionOperations transactions, MeterRegistry registry,
+                                 @Value("${filmorate.likes.write-behind.capacity:100000}") int capacity,
+                                 @Value("${filmorate.likes.write-behind.batch-size:1000}") int batchSize,
+                                 @Value("${filmorate.likes.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                 @Value("${filmorate.likes.write-behind.offer-timeout:100ms}") Duration offerTimeout) {
+        this.likeDbStorage = likeDbStorage;
+        this.eventDbStorage = eventDbStorage;
+        this.transactions = transactions;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.flushed = registry.counter("filmorate.likes.write-behind.flushed");
+        this.rejected = registry.counter("filmorate.likes.write-behind.rejected");
+        this.dropped = registry.counter("filmorate.likes.write-behind.dropped");
+        Gauge.builder("filmorate.likes.write-behind.pending", this, LikeWriteBehindBuffer::size).register(registry);
+    }
+
+    public void like(long filmId, long userId) {
+        offer(new Key(filmId, userId), true);
+    }
+
+    public void unlike(long filmId, long userId) {
+        offer(new Key(filmId, userId), false);
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void offer(Key key, boolean like) {
+        lock.lock();
+        try {
+            if (!running) {
+                throw new ServiceUnavailableException("Приём лайков остановлен");
+            }
+            if (pending.containsKey(key)) {
+                pending.remove(key);
+                pending.put(key, like);
+                return;
+            }
+            long remaining = offerTimeoutNanos;
+            while (pending.size() >= capacity) {
+                if (remaining <= 0) {
+                    rejected.increment();
+                    throw new ServiceUnavailableException("Очередь лайков переполнена, повторите запрос позже");
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+            pending.put(key, like);
+            if (pending.size() >= batchSize) {
+                flushRequested.signal();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Запрос прерван");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runWriter() {
+        while (true) {
+            List<Like> likes = new ArrayList<>();
+            List<Like> unlikes = new ArrayList<>();
+            lock.lock();
+            try {
+                long remaining = flushIntervalNanos;
+                while (running && pending.size() < batchSize && remaining > 0) {
+                    remaining = flushRequested.awaitNanos(remaining);
+                }
+                if (!running && pending.isEmpty()) {
+                    return;
+                }
+                Iterator<Map.Entry<Key, Boolean>> iterator = pending.entrySet().iterator();
+                while (iterator.hasNext() && likes.size() + unlikes.size() < batchSize) {
+                    Map.Entry<Key, Boolean> entry = iterator.next();
+                    (entry.getValue() ? likes : unlikes).add(entry.getKey().toLike());
+                    iterator.remove();
+                }
+                notFull.signalAll();
+            } catch (InterruptedException e) {
+                log.warn("Поток записи лайков прерван, осталось {} операций", pending.size());
+                return;
+            } finally {
+                lock.unlock();
+            }
+            write(likes, unlikes);
+        }
+    }
+
+    private void write(List<Like> likes, List<Like> unlikes) {
+        write(likes, true);
+        write(unlikes, false);
+    }
+
+    private void write(List<Like> batch, boolean like) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            apply(batch, like);
+            flushed.increment(batch.size());
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Пакет лайков из {} операций откатился, записываем по одной", batch.size(), e);
+            for (Like item : batch) {
+                try {
+                    apply(List.of(item), like);
+                    flushed.increment();
+                } catch (DataIntegrityViolationException itemError) {
+                    dropped.increment();
+                    log.warn("Лайк фильму {} от пользователя {} отброшен: {}", item.getFilmId(), item.getUserId(),
+                            itemError.getMostSpecificCause().getMessage());
+                }
+            }
+        } catch (RuntimeException e) {
+            dropped.increment(batch.size());
+            log.error("Не удалось записать пакет лайков из {} операций", batch.size(), e);
+        }
+    }
+
+    private void apply(List<Like> batch, boolean like) {
+        transactions.executeWithoutResult(status -> {
+            List<Like> changed = like ? likeDbStorage.addLikes(batch) : likeDbStorage.deleteLikes(batch);
+            if (changed.isEmpty()) {
+                return;
+            }
+            List<Event> events = new ArrayList<>(changed.size());
+            for (Like item : changed) {
+                Event event = new Event();
+                event.setUserId(item.getUserId());
+                event.setEventType(Event.EventType.LIKE);
+                event.setOperation(like ? Event.Operation.ADD : Event.Operation.REMOVE);
+                event.setEntityId(item.getFilmId());
+                events.add(event);
+            }
+            eventDbStorage.appendAll(events);
+        });
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("like-writer").start(this::runWriter);
+        log.info("Отложенная запись лайков включена: буфер {}, пакет {}", capacity, batchSize);
+    }
+
+    @Override
+    public void stop() {
+        lock.lock();
+        try {
+            running = false;
+            flushRequested.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Отложенная запись лайков остановлена, буфер записан");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private record Key(long filmId, long userId) {
+        private Like toLike() {
+            Like like = new Like();
+            like.setFilmId(filmId);
+            like.setUserId(userId);
+            return like;
+        }
+    }
+}
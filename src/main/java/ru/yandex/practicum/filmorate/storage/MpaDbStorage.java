@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.storage;
 
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -18,17 +19,38 @@ public class MpaDbStorage implements MpaStorage {
     private final JdbcTemplate jdbc;
     private final MpaRowMapper mapper;
 
+    // Справочник рейтингов неизменяем между вызовами refresh(), поэтому читается без запросов к базе;
+    // экземпляры неизменяемы и общие для всех фильмов, как и в GenreDbStorage
+    private volatile Mpa[] mpaById = new Mpa[0];
+    private volatile List<Mpa> mpa = List.of();
+
+    @PostConstruct
+    public void refresh() {
+        List<Mpa> loaded = jdbc.query("SELECT * FROM mpa ORDER BY id", mapper);
+        Mpa[] index = new Mpa[loaded.isEmpty() ? 0 : (int) loaded.get(loaded.size() - 1).getId() + 1];
+        for (Mpa rating : loaded) {
+            index[(int) rating.getId()] = rating;
+        }
+        mpaById = index;
+        mpa = List.copyOf(loaded);
+        log.info("Справочник рейтингов загружен: {} записей", loaded.size());
+    }
+
     public List<Mpa> findAll() {
-        String query = "SELECT * FROM mpa";
-        return jdbc.query(query, mapper);
+        return mpa;
     }
 
     public Mpa findById(long id) {
-        if (jdbc.query("SELECT * FROM mpa WHERE ID = ?", mapper, id).isEmpty()) {
+        Mpa[] index = mpaById;
+        if (id < 0 || id >= index.length || index[(int) id] == null) {
             throw new NotFoundException("Mpa с id = " + id + " не найден");
-        } else {
-            return jdbc.query("SELECT * FROM mpa WHERE ID = ?", mapper, id).get(0);
         }
+        return index[(int) id];
+    }
+
+    public boolean exists(long id) {
+        Mpa[] index = mpaById;
+        return id >= 0 && id < index.length && index[(int) id] != null;
     }
 
 }
@@ -9,4 +9,8 @@ public interface MpaStorage {
     public List<Mpa> findAll();
 
     public Mpa findById(long id);
+
+    public boolean exists(long id);
+
+    public void refresh();
 }
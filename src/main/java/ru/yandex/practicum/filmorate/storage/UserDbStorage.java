@@ -1,34 +1,143 @@
 package ru.yandex.practicum.filmorate.storage;
 
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.EntityVersion;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.index.IdBitSet;
 import ru.yandex.practicum.filmorate.storage.mappers.UserRowMapper;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Slf4j
+@Timed("filmorate.storage")
 @Repository
 @RequiredArgsConstructor
 public class UserDbStorage implements UserStorage {
+    // Поля проекции совпадают с именами колонок users
+    private static final Set<String> FIELDS = Set.of("id", "email", "login", "name", "birthday");
+
     private final JdbcTemplate jdbc;
     private final NamedParameterJdbcOperations jdbcOperations;
     private final UserRowMapper mapper;
+    private final IdBitSet knownIds = new IdBitSet();
+
+    @PostConstruct
+    public void loadIds() {
+        knownIds.clear();
+        jdbc.query("SELECT id FROM users", (RowCallbackHandler) rs -> knownIds.add(rs.getLong(1)));
+    }
 
     public List<User> findAll() {
         String query = "SELECT * FROM users";
         return jdbc.query(query, mapper);
     }
 
+    public List<User> findAllByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, User> users = new HashMap<>();
+        for (User user : jdbcOperations.query("SELECT * FROM users WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), mapper)) {
+            users.put(user.getId(), user);
+        }
+        List<User> result = new ArrayList<>(users.size());
+        for (Long id : ids) {
+            User user = users.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(jdbcOperations.queryForList("SELECT id FROM users WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), Long.class));
+    }
+
+    /**
+     * Существуют ли все пользователи: id, которых нет в битовой карте, отсекаются без обращения к базе,
+     * остальные подтверждаются одним запросом.
+     */
+    public boolean existsAll(Collection<Long> ids) {
+        Set<Long> distinct = new HashSet<>(ids);
+        for (Long id : distinct) {
+            if (!knownIds.mightContain(id)) {
+                return false;
+            }
+        }
+        if (distinct.isEmpty()) {
+            return true;
+        }
+        Integer found = jdbcOperations.queryForObject("SELECT COUNT(*) FROM users WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", distinct), Integer.class);
+        return found != null && found == distinct.size();
+    }
+
+    // Одна проверка на запрос; какого именно пользователя нет, выясняется только при ошибке
+    public void requireExisting(long... ids) {
+        List<Long> list = Arrays.stream(ids).boxed().toList();
+        if (existsAll(list)) {
+            return;
+        }
+        Set<Long> existing = findExistingIds(list);
+        for (long id : ids) {
+            if (!existing.contains(id)) {
+                throw new NotFoundException("Нет пользователя с id: " + id);
+            }
+        }
+    }
+
+    public List<User> findPage(long afterId, int limit) {
+        return jdbc.query("SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?", mapper, afterId, limit);
+    }
+
+    // Страница с проекцией: читаются только колонки запрошенных полей
+    public List<User> findPage(long afterId, int limit, Set<String> fields) {
+        checkFields(fields);
+        StringBuilder columns = new StringBuilder("id");
+        for (String field : FIELDS) {
+            if (!field.equals("id") && fields.contains(field)) {
+                columns.append(", ").append(field);
+            }
+        }
+        return jdbc.query("SELECT " + columns + " FROM users WHERE id > ? ORDER BY id LIMIT ?",
+                mapper.projection(fields), afterId, limit);
+    }
+
+    public void checkFields(Set<String> fields) {
+        for (String field : fields) {
+            if (!FIELDS.contains(field)) {
+                throw new ValidationException("Неизвестное поле пользователя: " + field);
+            }
+        }
+    }
+
     public User create(User user) {
         log.info("Создание нового пользователя: {}", user);
         if (user.getName() == null || user.getName().isBlank()) {
@@ -44,12 +153,45 @@ public class UserDbStorage implements UserStorage {
 
         jdbcOperations.update(
                 "INSERT INTO users(email, login, name, birthday) VALUES (:email, :login, :name, :birthday)",
-                map, keyHolder);
+                map, keyHolder, new String[]{"id"});
 
+        long id = keyHolder.getKey().longValue();
+        knownIds.add(id);
         log.info("Пользователь {} сохранен", user);
 
 
-        return jdbc.queryForObject("SELECT * FROM users WHERE ID = ?", mapper, keyHolder.getKey().longValue());
+        return jdbc.queryForObject("SELECT * FROM users WHERE ID = ?", mapper, id);
+    }
+
+    public List<Long> createAll(List<User> users) {
+        if (users.isEmpty()) {
+            return new ArrayList<>();
+        }
+        SqlParameterSource[] batch = new SqlParameterSource[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            if (user.getName() == null || user.getName().isBlank()) {
+                user.setName(user.getLogin());
+            }
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("email", user.getEmail())
+                    .addValue("login", user.getLogin())
+                    .addValue("name", user.getName())
+                    .addValue("birthday", user.getBirthday());
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcOperations.batchUpdate(
+                "INSERT INTO users(email, login, name, birthday) VALUES (:email, :login, :name, :birthday)",
+                batch, keyHolder, new String[]{"id"});
+
+        List<Long> ids = new ArrayList<>(users.size());
+        for (Map<String, Object> key : keyHolder.getKeyList()) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        // Как и в FilmDbStorage.createAll: при откате транзакции импорта id не попадают в набор известных
+        TransactionHooks.afterCommit(() -> ids.forEach(knownIds::add));
+        log.info("Сохранено пользователей пакетом: {}", ids.size());
+        return ids;
     }
 
     public User update(User newUser) {
@@ -58,9 +200,10 @@ public class UserDbStorage implements UserStorage {
             log.error("Нет id");
             throw new ValidationException("Id должен быть указан");
         }
-        if (!jdbc.query("SELECT * FROM users WHERE ID = ?", mapper, newUser.getId()).isEmpty()) {
-            String sql = "UPDATE USERS SET EMAIL = ?, NAME = ?, LOGIN = ?, BIRTHDAY = ? WHERE ID = ?";
-            jdbc.update(sql, newUser.getEmail(), newUser.getName(), newUser.getLogin(), newUser.getBirthday(), newUser.getId());
+        String sql = "UPDATE USERS SET EMAIL = ?, NAME = ?, LOGIN = ?, BIRTHDAY = ?, " +
+                "version = version + 1, modified_at = CURRENT_TIMESTAMP WHERE ID = ?";
+        if (jdbc.update(sql, newUser.getEmail(), newUser.getName(), newUser.getLogin(), newUser.getBirthday(),
+                newUser.getId()) > 0) {
             return jdbc.queryForObject("SELECT * FROM users WHERE ID = ?", mapper, newUser.getId());
         }
         log.error("Нет пользователя с данным id: {}", newUser.getId());
@@ -68,17 +211,39 @@ public class UserDbStorage implements UserStorage {
     }
 
     public void delete(long id) {
-        if (!jdbc.query("SELECT * FROM users WHERE ID = ?", mapper, id).isEmpty()) {
-            jdbc.update("DELETE FROM users WHERE ID = ?", id);
+        jdbc.update("DELETE FROM users WHERE ID = ?", id);
+    }
+
+    public EntityVersion findVersion(long id) {
+        List<EntityVersion> versions = jdbc.query("SELECT version, modified_at FROM users WHERE id = ?",
+                (rs, rowNum) -> new EntityVersion(String.valueOf(rs.getLong("version")),
+                        rs.getTimestamp("modified_at").toInstant()), id);
+        if (versions.isEmpty()) {
+            throw new NotFoundException("Нет пользователя с id: " + id);
         }
+        return versions.get(0);
+    }
+
+    // Версия набора пользователей: меняется при изменении любого из них и при удалении кого-либо из набора
+    public String findVersion(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return "0-0";
+        }
+        return jdbcOperations.queryForObject("SELECT COUNT(*) || '-' || COALESCE(SUM(version), 0) FROM users " +
+                "WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids), String.class);
+    }
+
+    // Изменение, не затрагивающее колонки пользователя, но меняющее связанные с ним ресурсы (список друзей)
+    public void touch(long id) {
+        jdbc.update("UPDATE users SET version = version + 1, modified_at = CURRENT_TIMESTAMP WHERE id = ?", id);
     }
 
     public User findById(long id) {
-        if (jdbc.query("SELECT * FROM users WHERE ID = ?", mapper, id).isEmpty()) {
+        if (!knownIds.mightContain(id)) {
             return null;
-        } else {
-            return jdbc.query("SELECT * FROM users WHERE ID = ?", mapper, id).get(0);
         }
+        List<User> users = jdbc.query("SELECT * FROM users WHERE ID = ?", mapper, id);
+        return users.isEmpty() ? null : users.get(0);
     }
 
 
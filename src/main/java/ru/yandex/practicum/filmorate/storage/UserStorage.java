@@ -2,6 +2,9 @@ package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
+import java.util.List;
+
 
 public interface UserStorage {
 
@@ -12,5 +15,9 @@ public interface UserStorage {
 
     public void delete(long id);
 
+    public List<User> findAllByIds(Collection<Long> ids);
+
+    public boolean existsAll(Collection<Long> ids);
+
 
 }
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Кэш полностью загруженных фильмов с ограничением по размеру (LRU) и времени жизни записи.
+ * Возвращаемые объекты разделяются между запросами и не должны изменяться вызывающим кодом.
+ */
+@Slf4j
+@Component
+public class FilmCache {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries;
+    private long invalidations;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public FilmCache(@Value("${filmorate.cache.films.max-size:10000}") int maxSize,
+                     @Value("${filmorate.cache.films.ttl:10m}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > FilmCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        log.info("Кэш фильмов: не более {} записей, время жизни {}", maxSize, ttl);
+    }
+
+    public synchronized Film get(long id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (System.nanoTime() - entry.loadedAt() > ttlNanos) {
+            entries.remove(id);
+            evictions++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.film();
+    }
+
+    // Метка берётся до чтения из базы: если за время чтения кэш инвалидировали, загруженные данные могли устареть
+    public synchronized long stamp() {
+        return invalidations;
+    }
+
+    public synchronized void putAll(Collection<Film> films, long stamp) {
+        if (stamp != invalidations || maxSize <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Film film : films) {
+            entries.put(film.getId(), new Entry(film, now));
+        }
+    }
+
+    public synchronized void invalidate(long id) {
+        invalidations++;
+        entries.remove(id);
+    }
+
+    public synchronized void clear() {
+        invalidations++;
+        entries.clear();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, entries.size());
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+
+    private record Entry(Film film, long loadedAt) {
+    }
+}
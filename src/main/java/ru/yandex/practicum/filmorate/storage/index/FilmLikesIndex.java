@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Матрица «пользователь × фильм» из films_likes: для каждого пользователя — отсортированный массив id
+ * понравившихся фильмов. Хранится разреженно, так как лайки пользователя — малая доля каталога.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmLikesIndex {
+    private static final int SIMILAR_USERS = 10;
+
+    private final JdbcTemplate jdbc;
+    private final Map<Long, long[]> likes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        likes.clear();
+        Loader loader = new Loader();
+        jdbc.query("SELECT user_id, film_id FROM films_likes ORDER BY user_id, film_id", loader);
+        loader.flush();
+        log.info("Матрица лайков загружена: {} пользователей с лайками", likes.size());
+    }
+
+    public void addLike(long filmId, long userId) {
+        likes.compute(userId, (id, ids) -> SortedLongs.insert(ids == null ? SortedLongs.EMPTY : ids, filmId));
+    }
+
+    public void removeLike(long filmId, long userId) {
+        likes.computeIfPresent(userId, (id, ids) -> {
+            long[] result = SortedLongs.remove(ids, filmId);
+            return result.length == 0 ? null : result;
+        });
+    }
+
+    public void removeFilm(long filmId) {
+        likes.replaceAll((id, ids) -> SortedLongs.remove(ids, filmId));
+    }
+
+    public void removeUser(long userId) {
+        likes.remove(userId);
+    }
+
+    // Возвращаемый массив общий для всех читателей и не должен изменяться
+    public long[] likedFilmIds(long userId) {
+        return likes.getOrDefault(userId, SortedLongs.EMPTY);
+    }
+
+    public long[] commonFilmIds(long userId, long otherId) {
+        return SortedLongs.intersect(likedFilmIds(userId), likedFilmIds(otherId));
+    }
+
+    /**
+     * Фильмы, которые понравились пользователям с наибольшим числом общих лайков и которых пользователь ещё не
+     * лайкал. Вес фильма — сумма числа общих лайков оценивших его похожих пользователей.
+     */
+    public long[] recommendations(long userId, int limit) {
+        long[] own = likedFilmIds(userId);
+        if (own.length == 0) {
+            return SortedLongs.EMPTY;
+        }
+        List<long[]> similar = likes.entrySet().parallelStream()
+                .filter(entry -> entry.getKey() != userId)
+                .map(entry -> new long[]{entry.getKey(), SortedLongs.intersectionSize(own, entry.getValue())})
+                .filter(score -> score[1] > 0)
+                .sorted(Comparator.<long[]>comparingLong(score -> -score[1]).thenComparingLong(score -> score[0]))
+                .limit(SIMILAR_USERS)
+                .toList();
+
+        Map<Long, Long> weights = new HashMap<>();
+        for (long[] score : similar) {
+            for (long filmId : likedFilmIds(score[0])) {
+                if (!SortedLongs.contains(own, filmId)) {
+                    weights.merge(filmId, score[1], Long::sum);
+                }
+            }
+        }
+        return weights.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+    }
+
+    private final class Loader implements RowCallbackHandler {
+        private long currentUserId = -1;
+        private long[] buffer = new long[16];
+        private int size;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long userId = rs.getLong("user_id");
+            if (userId != currentUserId) {
+                flush();
+                currentUserId = userId;
+            }
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = rs.getLong("film_id");
+        }
+
+        private void flush() {
+            if (size > 0) {
+                likes.put(currentUserId, Arrays.copyOf(buffer, size));
+            }
+            size = 0;
+        }
+    }
+}
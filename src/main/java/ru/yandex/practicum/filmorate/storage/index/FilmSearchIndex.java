@@ -0,0 +1,237 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Обратный индекс по названиям и описаниям фильмов: слово → отсортированный список id фильмов.
+ * Слова хранятся в нижнем регистре с заменой «ё» на «е», поэтому поиск не зависит от регистра и
+ * находит слова по префиксу. Фильм попадает в выдачу, только если найдены все слова запроса.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex {
+    private static final int EXACT_WEIGHT = 2;
+    private static final int PREFIX_WEIGHT = 1;
+
+    public enum Field {
+        TITLE(2), DESCRIPTION(1);
+
+        private final int weight;
+
+        Field(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private final JdbcTemplate jdbc;
+    private final Map<Field, NavigableMap<String, Postings>> postings = new EnumMap<>(Map.of(
+            Field.TITLE, new TreeMap<>(), Field.DESCRIPTION, new TreeMap<>()));
+    // Слова фильма по полям (индекс — Field.ordinal()) нужны только для удаления из postings. Это те же
+    // экземпляры строк, что и ключи postings, поэтому документ держит лишь массивы ссылок на них
+    private final Map<Long, String[][]> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            postings.values().forEach(Map::clear);
+            documents.clear();
+            jdbc.query("SELECT id, name, description FROM films ORDER BY id", (RowCallbackHandler) rs ->
+                    add(rs.getLong("id"), rs.getString("name"), rs.getString("description")));
+            log.info("Поисковый индекс загружен: {} фильмов, {} слов в названиях", documents.size(),
+                    postings.get(Field.TITLE).size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(long filmId, String title, String description) {
+        lock.writeLock().lock();
+        try {
+            remove(filmId);
+            add(filmId, title, description);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilm(long filmId) {
+        lock.writeLock().lock();
+        try {
+            remove(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Id фильмов по убыванию релевантности. Вес совпадения — вес поля (название важнее описания),
+     * умноженный на 2 для полного совпадения слова и на 1 для совпадения по префиксу.
+     */
+    public List<Long> search(String query, Collection<Field> fields, int limit) {
+        List<String> terms = new ArrayList<>(tokenize(query));
+        if (terms.isEmpty() || fields.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String term : terms) {
+                Map<Long, Integer> termScores = score(term, fields, scores);
+                if (termScores.isEmpty()) {
+                    return List.of();
+                }
+                scores = termScores;
+            }
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Баллы фильмов за одно слово запроса; если previous задан, учитываются только фильмы из него
+    private Map<Long, Integer> score(String term, Collection<Field> fields, Map<Long, Integer> previous) {
+        Map<Long, Integer> result = new HashMap<>();
+        for (Field field : fields) {
+            NavigableMap<String, Postings> matches = postings.get(field)
+                    .subMap(term, true, term + Character.MAX_VALUE, false);
+            for (Map.Entry<String, Postings> match : matches.entrySet()) {
+                int weight = field.weight * (match.getKey().equals(term) ? EXACT_WEIGHT : PREFIX_WEIGHT);
+                Postings films = match.getValue();
+                for (int i = 0; i < films.size; i++) {
+                    long filmId = films.ids[i];
+                    if (previous == null) {
+                        result.merge(filmId, weight, Math::max);
+                    } else {
+                        Integer score = previous.get(filmId);
+                        if (score != null) {
+                            result.merge(filmId, score + weight, Math::max);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private void add(long filmId, String title, String description) {
+        String[][] document = new String[Field.values().length][];
+        document[Field.TITLE.ordinal()] = addTerms(Field.TITLE, filmId, tokenize(title));
+        document[Field.DESCRIPTION.ordinal()] = addTerms(Field.DESCRIPTION, filmId, tokenize(description));
+        documents.put(filmId, document);
+    }
+
+    private String[] addTerms(Field field, long filmId, Set<String> terms) {
+        String[] shared = new String[terms.size()];
+        int i = 0;
+        for (String term : terms) {
+            Postings films = postings.get(field).computeIfAbsent(term, Postings::new);
+            films.add(filmId);
+            shared[i++] = films.term;
+        }
+        return shared;
+    }
+
+    private void remove(long filmId) {
+        String[][] document = documents.remove(filmId);
+        if (document == null) {
+            return;
+        }
+        for (Field field : Field.values()) {
+            for (String term : document[field.ordinal()]) {
+                postings.get(field).computeIfPresent(term, (key, films) -> films.remove(filmId) ? films : null);
+            }
+        }
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                terms.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Отсортированный список id. Фильмы создаются с возрастающими id, поэтому добавление почти
+     * всегда идёт в конец массива за амортизированное O(1).
+     */
+    private static final class Postings {
+        private final String term;
+        private long[] ids = new long[4];
+        private int size;
+
+        private Postings(String term) {
+            this.term = term;
+        }
+
+        private void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int position = Arrays.binarySearch(ids, 0, size, id);
+                if (position >= 0) {
+                    return;
+                }
+                insertAt(-position - 1, id);
+                return;
+            }
+            insertAt(size, id);
+        }
+
+        private void insertAt(int position, long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        // false, если список опустел
+        private boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+                size--;
+            }
+            return size > 0;
+        }
+    }
+}
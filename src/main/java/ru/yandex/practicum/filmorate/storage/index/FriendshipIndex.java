@@ -0,0 +1,193 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Списки друзей в памяти: для каждого пользователя — отсортированный массив id его друзей
+ * (строки friendship_request со status = true). Индекс обновляется после каждой записи в таблицу.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendshipIndex {
+    private final JdbcTemplate jdbc;
+    private final Map<Long, long[]> friends = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        friends.clear();
+        Loader loader = new Loader();
+        jdbc.query("SELECT from_user_id, to_user_id FROM friendship_request WHERE status = true " +
+                "ORDER BY from_user_id, to_user_id", loader);
+        loader.flush();
+        log.info("Индекс дружбы загружен: {} пользователей с друзьями", friends.size());
+    }
+
+    public void addFriend(long userId, long friendId) {
+        friends.compute(userId, (id, ids) -> SortedLongs.insert(ids == null ? SortedLongs.EMPTY : ids, friendId));
+    }
+
+    public void removeFriend(long userId, long friendId) {
+        friends.computeIfPresent(userId, (id, ids) -> {
+            long[] result = SortedLongs.remove(ids, friendId);
+            return result.length == 0 ? null : result;
+        });
+    }
+
+    public void removeUser(long userId) {
+        friends.remove(userId);
+        friends.replaceAll((id, ids) -> SortedLongs.remove(ids, userId));
+    }
+
+    // Возвращаемый массив общий для всех читателей и не должен изменяться
+    public long[] friendIds(long userId) {
+        return friends.getOrDefault(userId, SortedLongs.EMPTY);
+    }
+
+    public boolean isFriend(long userId, long friendId) {
+        return SortedLongs.contains(friendIds(userId), friendId);
+    }
+
+    public long[] commonFriendIds(long userId, long otherId) {
+        return SortedLongs.intersect(friendIds(userId), friendIds(otherId));
+    }
+
+    /**
+     * Друзья друзей, ранжированные по числу общих друзей (по убыванию, при равенстве — по id).
+     * Отсортированные списки друзей сливаются k-way merge, поэтому память ограничена числом друзей
+     * пользователя и размером ответа, а не числом пользователей на расстоянии двух рукопожатий.
+     */
+    public long[] suggestions(long userId, int limit) {
+        long[] own = friendIds(userId);
+        long[][] lists = new long[own.length][];
+        for (int i = 0; i < own.length; i++) {
+            lists[i] = friendIds(own[i]);
+        }
+        MergeCursor cursor = new MergeCursor(lists);
+        PriorityQueue<long[]> best = new PriorityQueue<>(Comparator.<long[]>comparingLong(entry -> entry[1])
+                .thenComparingLong(entry -> -entry[0]));
+        while (cursor.hasNext()) {
+            long candidate = cursor.peek();
+            long mutual = 0;
+            while (cursor.hasNext() && cursor.peek() == candidate) {
+                cursor.advance();
+                mutual++;
+            }
+            if (candidate == userId || SortedLongs.contains(own, candidate)) {
+                continue;
+            }
+            best.add(new long[]{candidate, mutual});
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        long[] result = new long[best.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = best.poll()[0];
+        }
+        return result;
+    }
+
+    // Минимальная куча по текущим элементам нескольких отсортированных массивов
+    private static final class MergeCursor {
+        private final long[][] lists;
+        private final int[] positions;
+        private final int[] heap;
+        private int size;
+
+        private MergeCursor(long[][] lists) {
+            this.lists = lists;
+            this.positions = new int[lists.length];
+            this.heap = new int[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                if (lists[i].length > 0) {
+                    heap[size++] = i;
+                }
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        private boolean hasNext() {
+            return size > 0;
+        }
+
+        private long peek() {
+            return current(heap[0]);
+        }
+
+        private void advance() {
+            int list = heap[0];
+            positions[list]++;
+            if (positions[list] == lists[list].length) {
+                heap[0] = heap[--size];
+            }
+            siftDown(0);
+        }
+
+        private long current(int list) {
+            return lists[list][positions[list]];
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int smallest = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && current(heap[left]) < current(heap[smallest])) {
+                    smallest = left;
+                }
+                if (right < size && current(heap[right]) < current(heap[smallest])) {
+                    smallest = right;
+                }
+                if (smallest == index) {
+                    return;
+                }
+                int swap = heap[index];
+                heap[index] = heap[smallest];
+                heap[smallest] = swap;
+                index = smallest;
+            }
+        }
+    }
+
+    private final class Loader implements RowCallbackHandler {
+        private long currentUserId = -1;
+        private long[] buffer = new long[16];
+        private int size;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long fromUserId = rs.getLong("from_user_id");
+            if (fromUserId != currentUserId) {
+                flush();
+                currentUserId = fromUserId;
+            }
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = rs.getLong("to_user_id");
+        }
+
+        private void flush() {
+            if (size > 0) {
+                friends.put(currentUserId, Arrays.copyOf(buffer, size));
+            }
+            size = 0;
+        }
+    }
+}
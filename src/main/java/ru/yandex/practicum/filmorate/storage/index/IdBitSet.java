@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Множество id, выданных базой, в виде битовой карты: один бит на id, миллион записей — 125 КБ.
+ * Удаления не сбрасывают биты, поэтому отсутствие бита точно означает отсутствие записи,
+ * а установленный бит нужно подтверждать запросом. Запись — под блокировкой, чтение — без неё.
+ */
+public class IdBitSet {
+    private volatile AtomicLongArray words = new AtomicLongArray(0);
+
+    public synchronized void add(long id) {
+        if (id < 0) {
+            return;
+        }
+        int word = (int) (id >>> 6);
+        AtomicLongArray current = words;
+        if (word >= current.length()) {
+            AtomicLongArray grown = new AtomicLongArray(Math.max(word + 1, current.length() * 2));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            words = grown;
+            current = grown;
+        }
+        current.set(word, current.get(word) | (1L << id));
+    }
+
+    public boolean mightContain(long id) {
+        if (id < 0 || (id >>> 6) > Integer.MAX_VALUE) {
+            return false;
+        }
+        AtomicLongArray current = words;
+        int word = (int) (id >>> 6);
+        return word < current.length() && (current.get(word) & (1L << id)) != 0;
+    }
+
+    public synchronized void clear() {
+        words = new AtomicLongArray(0);
+    }
+}
@@ -0,0 +1,191 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Рейтинг фильмов по количеству лайков, поддерживаемый инкрементально.
+ * Источник истины — колонка films.likes_count, индекс загружается из неё при старте
+ * и далее обновляется при каждом добавлении и удалении лайка.
+ * Помимо общего рейтинга ведутся отдельные рейтинги по каждому жанру и году выхода, для чего
+ * индекс хранит жанры и год всех фильмов каталога.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PopularFilmsIndex {
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::likes).reversed()
+            .thenComparingLong(Entry::filmId);
+    private static final Facets NO_FACETS = new Facets(0, SortedLongs.EMPTY);
+
+    private final JdbcTemplate jdbc;
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final NavigableSet<Entry> ranking = new TreeSet<>(ORDER);
+    private final Map<Long, Facets> facets = new HashMap<>();
+    private final Map<Long, NavigableSet<Entry>> byGenre = new HashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> byYear = new HashMap<>();
+
+    @PostConstruct
+    public synchronized void load() {
+        entries.clear();
+        ranking.clear();
+        facets.clear();
+        byGenre.clear();
+        byYear.clear();
+        jdbc.query("SELECT id, releaseDate FROM films",
+                rs -> {
+                    Date releaseDate = rs.getDate("releaseDate");
+                    facets.put(rs.getLong("id"), new Facets(year(releaseDate == null ? null : releaseDate.toLocalDate()),
+                            SortedLongs.EMPTY));
+                });
+        jdbc.query("SELECT film_id, genre_id FROM films_genre",
+                rs -> {
+                    long filmId = rs.getLong("film_id");
+                    long genreId = rs.getLong("genre_id");
+                    facets.computeIfPresent(filmId, (id, film) ->
+                            new Facets(film.year(), SortedLongs.insert(film.genreIds(), genreId)));
+                });
+        jdbc.query("SELECT id, likes_count FROM films WHERE likes_count > 0",
+                rs -> {
+                    put(rs.getLong("id"), rs.getInt("likes_count"));
+                });
+        log.info("Рейтинг популярных фильмов загружен: {} фильмов, {} жанров, {} лет", entries.size(),
+                byGenre.size(), byYear.size());
+    }
+
+    // Год выхода и жанры фильма; вызывается при создании и обновлении фильма
+    public synchronized void describe(long filmId, LocalDate releaseDate, Collection<Long> genreIds) {
+        Entry entry = entries.get(filmId);
+        if (entry != null) {
+            unrank(entry);
+        }
+        long[] genres = SortedLongs.EMPTY;
+        for (Long genreId : genreIds) {
+            genres = SortedLongs.insert(genres, genreId);
+        }
+        facets.put(filmId, new Facets(year(releaseDate), genres));
+        if (entry != null) {
+            rank(entry);
+        }
+    }
+
+    public synchronized void changeLikes(long filmId, int delta) {
+        Entry old = entries.get(filmId);
+        put(filmId, (old == null ? 0 : old.likes()) + delta);
+    }
+
+    public synchronized void remove(long filmId) {
+        Entry old = entries.remove(filmId);
+        if (old != null) {
+            unrank(old);
+        }
+        facets.remove(filmId);
+    }
+
+    public List<Long> top(int count) {
+        return top(count, null, null);
+    }
+
+    /**
+     * Самые популярные фильмы с учётом необязательных фильтров по жанру и году. При обоих фильтрах
+     * обходится меньший из двух рейтингов с проверкой второго условия.
+     */
+    public synchronized List<Long> top(int count, Long genreId, Integer year) {
+        NavigableSet<Entry> source = ranking;
+        if (genreId != null) {
+            source = byGenre.getOrDefault(genreId, new TreeSet<>());
+        }
+        if (year != null) {
+            NavigableSet<Entry> yearRanking = byYear.getOrDefault(year, new TreeSet<>());
+            if (genreId == null || yearRanking.size() < source.size()) {
+                source = yearRanking;
+            }
+        }
+        List<Long> ids = new ArrayList<>(Math.min(Math.max(count, 0), source.size()));
+        Iterator<Entry> iterator = source.iterator();
+        while (ids.size() < count && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            Facets film = facets.getOrDefault(entry.filmId(), NO_FACETS);
+            if ((genreId == null || SortedLongs.contains(film.genreIds(), genreId))
+                    && (year == null || film.year() == year)) {
+                ids.add(entry.filmId());
+            }
+        }
+        return ids;
+    }
+
+    // Упорядочивает произвольный набор фильмов так же, как общий рейтинг; фильмы без лайков — в конце по id
+    public synchronized List<Long> rank(long[] filmIds) {
+        List<Entry> ranked = new ArrayList<>(filmIds.length);
+        for (long filmId : filmIds) {
+            Entry entry = entries.get(filmId);
+            ranked.add(entry != null ? entry : new Entry(filmId, 0));
+        }
+        ranked.sort(ORDER);
+        return ranked.stream().map(Entry::filmId).toList();
+    }
+
+    private void put(long filmId, int likes) {
+        Entry old = entries.remove(filmId);
+        if (old != null) {
+            unrank(old);
+        }
+        if (likes > 0) {
+            Entry entry = new Entry(filmId, likes);
+            entries.put(filmId, entry);
+            rank(entry);
+        }
+    }
+
+    private void rank(Entry entry) {
+        ranking.add(entry);
+        Facets film = facets.getOrDefault(entry.filmId(), NO_FACETS);
+        for (long genreId : film.genreIds()) {
+            byGenre.computeIfAbsent(genreId, id -> new TreeSet<>(ORDER)).add(entry);
+        }
+        if (film.year() != 0) {
+            byYear.computeIfAbsent(film.year(), year -> new TreeSet<>(ORDER)).add(entry);
+        }
+    }
+
+    private void unrank(Entry entry) {
+        ranking.remove(entry);
+        Facets film = facets.getOrDefault(entry.filmId(), NO_FACETS);
+        for (long genreId : film.genreIds()) {
+            NavigableSet<Entry> genreRanking = byGenre.get(genreId);
+            if (genreRanking != null && genreRanking.remove(entry) && genreRanking.isEmpty()) {
+                byGenre.remove(genreId);
+            }
+        }
+        NavigableSet<Entry> yearRanking = byYear.get(film.year());
+        if (yearRanking != null && yearRanking.remove(entry) && yearRanking.isEmpty()) {
+            byYear.remove(film.year());
+        }
+    }
+
+    private static int year(LocalDate releaseDate) {
+        return releaseDate == null ? 0 : releaseDate.getYear();
+    }
+
+    private record Entry(long filmId, int likes) {
+    }
+
+    // year = 0, если дата выхода не указана
+    private record Facets(int year, long[] genreIds) {
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.storage.mappers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Event;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+@Component
+public class EventRowMapper implements RowMapper<Event> {
+    private static final Counter ROWS = Metrics.counter("filmorate.rows.mapped", "mapper", "event");
+
+    @Override
+    public Event mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        ROWS.increment();
+        Event event = new Event();
+        event.setEventId(resultSet.getLong("id"));
+        event.setUserId(resultSet.getLong("user_id"));
+        event.setEventType(Event.EventType.valueOf(resultSet.getString("event_type")));
+        event.setOperation(Event.Operation.valueOf(resultSet.getString("operation")));
+        event.setEntityId(resultSet.getLong("entity_id"));
+        event.setTimestamp(resultSet.getTimestamp("created_at").getTime());
+        return event;
+    }
+}
@@ -1,27 +1,65 @@
 package ru.yandex.practicum.filmorate.storage.mappers;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
+import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Set;
 
 @Component
 public class FilmRowMapper implements RowMapper<Film> {
+    private static final Counter ROWS = Metrics.counter("filmorate.rows.mapped", "mapper", "film");
+
     @Override
     public Film mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        ROWS.increment();
         Film film = new Film();
         film.setId(resultSet.getLong("id"));
         film.setName(resultSet.getString("name"));
         film.setDescription(resultSet.getString("description"));
-        film.setReleaseDate(resultSet.getTimestamp("releaseDate").toLocalDateTime().toLocalDate());
+        film.setReleaseDate(releaseDate(resultSet));
         film.setDuration(resultSet.getInt("duration"));
-        Mpa mpa = new Mpa();
-        mpa.setId(resultSet.getLong("mpa_id"));
-        mpa.setName(resultSet.getString("name"));
-        film.setMpa(mpa);
+        film.setMpa(new Mpa(resultSet.getLong("mpa_id"), null));
+        film.setVersion(resultSet.getLong("version"));
+        film.setModifiedAt(resultSet.getTimestamp("modified_at").toInstant());
         return film;
     }
+
+    // Читает только колонки запрошенных полей; mpa заполняется одним id, как и в полном маппинге
+    public RowMapper<Film> projection(Set<String> fields) {
+        return (resultSet, rowNum) -> {
+            ROWS.increment();
+            Film film = new Film();
+            film.setId(resultSet.getLong("id"));
+            if (fields.contains("name")) {
+                film.setName(resultSet.getString("name"));
+            }
+            if (fields.contains("description")) {
+                film.setDescription(resultSet.getString("description"));
+            }
+            if (fields.contains("releaseDate")) {
+                film.setReleaseDate(releaseDate(resultSet));
+            }
+            if (fields.contains("duration")) {
+                film.setDuration(resultSet.getInt("duration"));
+            }
+            if (fields.contains("mpa")) {
+                film.setMpa(new Mpa(resultSet.getLong("mpa_id"), null));
+            }
+            return film;
+        };
+    }
+
+    // Дата выхода необязательна
+    private static LocalDate releaseDate(ResultSet resultSet) throws SQLException {
+        Date releaseDate = resultSet.getDate("releaseDate");
+        return releaseDate == null ? null : releaseDate.toLocalDate();
+    }
 }
@@ -1,5 +1,7 @@
 package ru.yandex.practicum.filmorate.storage.mappers;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Genre;
@@ -9,13 +11,11 @@ import java.sql.SQLException;
 
 @Component
 public class GenreRowMapper implements RowMapper<Genre> {
+    private static final Counter ROWS = Metrics.counter("filmorate.rows.mapped", "mapper", "genre");
 
     @Override
     public Genre mapRow(ResultSet resultSet, int rowNum) throws SQLException {
-        Genre genre = new Genre();
-        genre.setId(resultSet.getLong("id"));
-        genre.setName(resultSet.getString("name"));
-
-        return genre;
+        ROWS.increment();
+        return new Genre(resultSet.getLong("id"), resultSet.getString("name"));
     }
 }
@@ -1,5 +1,7 @@
 package ru.yandex.practicum.filmorate.storage.mappers;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Mpa;
@@ -9,13 +11,11 @@ import java.sql.SQLException;
 
 @Component
 public class MpaRowMapper implements RowMapper<Mpa> {
+    private static final Counter ROWS = Metrics.counter("filmorate.rows.mapped", "mapper", "mpa");
 
     @Override
     public Mpa mapRow(ResultSet resultSet, int rowNum) throws SQLException {
-        Mpa mpa = new Mpa();
-        mpa.setId(resultSet.getLong("id"));
-        mpa.setName(resultSet.getString("name"));
-
-        return mpa;
+        ROWS.increment();
+        return new Mpa(resultSet.getLong("id"), resultSet.getString("name"));
     }
 }
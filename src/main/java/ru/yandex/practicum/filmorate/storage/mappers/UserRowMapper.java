@@ -1,23 +1,52 @@
 package ru.yandex.practicum.filmorate.storage.mappers;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Set;
 
 @Component
 public class UserRowMapper implements RowMapper<User> {
+    private static final Counter ROWS = Metrics.counter("filmorate.rows.mapped", "mapper", "user");
+
     @Override
     public User mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        ROWS.increment();
         User user = new User();
         user.setId(resultSet.getLong("id"));
         user.setName(resultSet.getString("name"));
         user.setEmail(resultSet.getString("email"));
         user.setLogin(resultSet.getString("login"));
         user.setBirthday(resultSet.getTimestamp("birthday").toLocalDateTime().toLocalDate());
+        user.setVersion(resultSet.getLong("version"));
+        user.setModifiedAt(resultSet.getTimestamp("modified_at").toInstant());
 
         return user;
     }
+
+    public RowMapper<User> projection(Set<String> fields) {
+        return (resultSet, rowNum) -> {
+            ROWS.increment();
+            User user = new User();
+            user.setId(resultSet.getLong("id"));
+            if (fields.contains("name")) {
+                user.setName(resultSet.getString("name"));
+            }
+            if (fields.contains("email")) {
+                user.setEmail(resultSet.getString("email"));
+            }
+            if (fields.contains("login")) {
+                user.setLogin(resultSet.getString("login"));
+            }
+            if (fields.contains("birthday")) {
+                user.setBirthday(resultSet.getTimestamp("birthday").toLocalDateTime().toLocalDate());
+            }
+            return user;
+        };
+    }
 }
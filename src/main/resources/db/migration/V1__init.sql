@@ -23,6 +23,7 @@ CREATE TABLE IF NOT EXISTS films
     releaseDate date,
     duration INTEGER,
     mpa_id INTEGER REFERENCES mpa(id),
+    likes_count INTEGER DEFAULT 0 NOT NULL,
     PRIMARY KEY(id),
     CONSTRAINT duration_positive CHECK(duration > 0)
 );
@@ -54,3 +55,7 @@ CREATE TABLE IF NOT EXISTS films_genre
     genre_id INTEGER REFERENCES genre(id)
 );
 
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count INTEGER DEFAULT 0 NOT NULL;
+
+MERGE INTO mpa(id, name) KEY (id) VALUES (1, 'G'), (2, 'PG'), (3, 'PG-13'), (4, 'R'), (5, 'NC-17');
+MERGE INTO genre(id, name) KEY (id) VALUES (1, 'Комедия'), (2, 'Драма'), (3, 'Мультфильм'), (4, 'Триллер'), (5, 'Документальный'), (6, 'Боевик');
@@ -0,0 +1,29 @@
+-- Без ключей повторные лайки и заявки в друзья дублировали строки и завышали рейтинг.
+-- Перед добавлением ключей оставляем по одной строке из каждой группы дублей.
+DELETE FROM films_likes WHERE film_id IS NULL OR user_id IS NULL;
+DELETE FROM films_likes AS L1 WHERE EXISTS (SELECT 1 FROM films_likes AS L2
+    WHERE L2.film_id = L1.film_id AND L2.user_id = L1.user_id AND L2._ROWID_ < L1._ROWID_);
+ALTER TABLE films_likes ALTER COLUMN film_id SET NOT NULL;
+ALTER TABLE films_likes ALTER COLUMN user_id SET NOT NULL;
+ALTER TABLE films_likes ADD CONSTRAINT pk_films_likes PRIMARY KEY (film_id, user_id);
+CREATE INDEX idx_films_likes_user ON films_likes (user_id, film_id);
+
+DELETE FROM friendship_request WHERE from_user_id IS NULL OR to_user_id IS NULL OR status IS NULL;
+DELETE FROM friendship_request AS F1 WHERE EXISTS (SELECT 1 FROM friendship_request AS F2
+    WHERE F2.from_user_id = F1.from_user_id AND F2.to_user_id = F1.to_user_id AND F2.status = F1.status
+    AND F2._ROWID_ < F1._ROWID_);
+ALTER TABLE friendship_request ALTER COLUMN from_user_id SET NOT NULL;
+ALTER TABLE friendship_request ALTER COLUMN to_user_id SET NOT NULL;
+ALTER TABLE friendship_request ALTER COLUMN status SET NOT NULL;
+ALTER TABLE friendship_request ADD CONSTRAINT pk_friendship_request PRIMARY KEY (from_user_id, to_user_id, status);
+CREATE INDEX idx_friendship_request_to_user ON friendship_request (to_user_id, from_user_id);
+
+DELETE FROM films_genre WHERE film_id IS NULL OR genre_id IS NULL;
+DELETE FROM films_genre AS G1 WHERE EXISTS (SELECT 1 FROM films_genre AS G2
+    WHERE G2.film_id = G1.film_id AND G2.genre_id = G1.genre_id AND G2._ROWID_ < G1._ROWID_);
+ALTER TABLE films_genre ALTER COLUMN film_id SET NOT NULL;
+ALTER TABLE films_genre ALTER COLUMN genre_id SET NOT NULL;
+ALTER TABLE films_genre ADD CONSTRAINT pk_films_genre PRIMARY KEY (film_id, genre_id);
+CREATE INDEX idx_films_genre_genre ON films_genre (genre_id, film_id);
+
+UPDATE films SET likes_count = (SELECT COUNT(*) FROM films_likes WHERE films_likes.film_id = films.id);
@@ -0,0 +1,15 @@
+-- Лента действий пользователей: журнал только на добавление. Порядок задаёт возрастающий id,
+-- поэтому чтение ленты — просмотр диапазона индекса (user_id, id) с продолжением после последнего id.
+CREATE TABLE IF NOT EXISTS events
+(
+    id BIGINT AUTO_INCREMENT,
+    user_id INTEGER NOT NULL,
+    event_type varchar(16) NOT NULL,
+    operation varchar(16) NOT NULL,
+    entity_id INTEGER NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    PRIMARY KEY(id),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_events_user ON events (user_id, id);
@@ -0,0 +1,6 @@
+-- Одна строка на направление дружбы: повторная заявка или подтверждение меняют статус существующей
+-- строки, а не добавляют вторую. Из пары (подтверждённая, ожидающая) оставляем подтверждённую.
+DELETE FROM friendship_request AS F1 WHERE NOT F1.status AND EXISTS (SELECT 1 FROM friendship_request AS F2
+    WHERE F2.from_user_id = F1.from_user_id AND F2.to_user_id = F1.to_user_id AND F2.status);
+ALTER TABLE friendship_request DROP CONSTRAINT pk_friendship_request;
+ALTER TABLE friendship_request ADD CONSTRAINT pk_friendship_request PRIMARY KEY (from_user_id, to_user_id);
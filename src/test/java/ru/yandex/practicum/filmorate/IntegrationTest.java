@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+/**
+ * Общий контекст приложения поверх одной in-memory базы для всех тестов-наследников.
+ * База между классами не очищается, поэтому проверки касаются только созданных в тесте записей.
+ */
+@SpringBootTest(properties = "filmorate.h2.location=mem:integration;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+public abstract class IntegrationTest {
+
+    protected static Film film() {
+        Film film = new Film();
+        film.setName("Фильм");
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(new Mpa(1, null));
+        return film;
+    }
+
+    protected static User user(String login) {
+        User user = new User();
+        user.setEmail(login + "@example.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    protected static Like like(long filmId, long userId) {
+        Like like = new Like();
+        like.setFilmId(filmId);
+        like.setUserId(userId);
+        return like;
+    }
+}
@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.IntegrationTest;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ConditionalRequestsTest extends IntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+
+    @Autowired
+    private UserDbStorage userDbStorage;
+
+    @Test
+    void testFilmEtagChangesAfterUpdate() throws Exception {
+        Film film = filmDbStorage.create(film(null, "Первое название"));
+        String etag = etag("/films/" + film.getId());
+
+        assertNotModified("/films/" + film.getId(), etag);
+
+        mockMvc.perform(put("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(film(film.getId(), "Второе название"))))
+                .andExpect(status().isOk());
+
+        String changed = mockMvc.perform(get("/films/{id}", film.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(changed);
+        assertNotEquals(etag, changed);
+        assertNotModified("/films/" + film.getId(), changed);
+    }
+
+    @Test
+    void testFriendsEtagChangesAfterAddAndRemove() throws Exception {
+        long userId = userDbStorage.create(user("etag-owner")).getId();
+        long friendId = userDbStorage.create(user("etag-friend")).getId();
+        String path = "/users/" + userId + "/friends";
+        String empty = etag(path);
+        assertNotModified(path, empty);
+
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", userId, friendId)).andExpect(status().isOk());
+        String withFriend = etag(path);
+        assertNotEquals(empty, withFriend);
+        assertNotModified(path, withFriend);
+
+        mockMvc.perform(delete("/users/{id}/friends/{friendId}", userId, friendId)).andExpect(status().isOk());
+        String removed = etag(path);
+        assertNotEquals(withFriend, removed);
+        assertNotModified(path, removed);
+    }
+
+    @Test
+    void testDictionariesAnswerNotModified() throws Exception {
+        assertNotModified("/genres", etag("/genres"));
+        assertNotModified("/genres/1", etag("/genres/1"));
+        assertNotModified("/mpa", etag("/mpa"));
+        assertNotModified("/mpa/1", etag("/mpa/1"));
+    }
+
+    @Test
+    void testMissingEntityIsNotFoundEvenWithMatchingTag() throws Exception {
+        for (String path : new String[]{"/films/999999", "/users/999999/friends", "/genres/999", "/mpa/999"}) {
+            mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, "\"0\"", "*"))
+                    .andExpect(status().isNotFound());
+        }
+        String body = mockMvc.perform(get("/films/999999"))
+                .andExpect(status().isNotFound())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(body.contains("Нет фильма с id: 999999"), body);
+    }
+
+    private String etag(String path) throws Exception {
+        String etag = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+
+    private void assertNotModified(String path, String etag) throws Exception {
+        mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    private static Film film(Long id, String name) {
+        Film film = film();
+        film.setId(id);
+        film.setName(name);
+        return film;
+    }
+}
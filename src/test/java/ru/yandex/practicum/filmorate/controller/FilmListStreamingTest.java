@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.yandex.practicum.filmorate.IntegrationTest;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FilmListStreamingTest extends IntegrationTest {
+    // Больше двух страниц JsonArrayWriter по 500 фильмов
+    private static final int FILMS = 1001;
+    private static final int UNDATED = 700;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private long firstId;
+    private long lastId;
+    private long undatedId;
+
+    @BeforeAll
+    void createFilms() {
+        List<Film> films = new ArrayList<>(FILMS);
+        for (int i = 0; i < FILMS; i++) {
+            Film film = film();
+            film.setReleaseDate(i == UNDATED ? null : LocalDate.of(2000, 1, 1).plusDays(i));
+            films.add(film);
+        }
+        List<Long> ids = filmDbStorage.createAll(films);
+        firstId = ids.get(0);
+        lastId = ids.get(FILMS - 1);
+        undatedId = ids.get(UNDATED);
+    }
+
+    @Test
+    void testFullListStreamsAcrossPageBoundaries() throws Exception {
+        JsonNode films = stream(get("/films"));
+
+        long previous = 0;
+        int own = 0;
+        for (JsonNode film : films) {
+            long id = film.get("id").asLong();
+            assertTrue(id > previous, "id должны идти по возрастанию без повторов: " + previous + ", " + id);
+            previous = id;
+            if (!isOwn(id)) {
+                continue;
+            }
+            own++;
+            if (id == undatedId) {
+                assertTrue(film.get("releaseDate").isNull());
+            } else {
+                assertTrue(film.get("releaseDate").isTextual());
+            }
+        }
+        assertEquals(FILMS, own);
+    }
+
+    @Test
+    void testProjectionReturnsOnlyIdAndRequestedFields() throws Exception {
+        JsonNode films = stream(get("/films").param("fields", "name"));
+
+        assertTrue(films.size() >= FILMS);
+        for (JsonNode film : films) {
+            assertEquals(Set.of("id", "name"), fieldNames(film));
+        }
+
+        JsonNode dates = stream(get("/films").param("fields", "releaseDate"));
+        assertTrue(dates.size() >= FILMS);
+        for (JsonNode film : dates) {
+            assertEquals(Set.of("id", "releaseDate"), fieldNames(film));
+            if (isOwn(film.get("id").asLong())) {
+                assertEquals(film.get("id").asLong() == undatedId, film.get("releaseDate").isNull());
+            }
+        }
+
+        JsonNode page = stream(get("/films").param("afterId", String.valueOf(firstId - 1)).param("limit", "10")
+                .param("fields", "name"));
+        assertEquals(10, page.size());
+        assertEquals(firstId, page.get(0).get("id").asLong());
+        assertEquals(Set.of("id", "name"), fieldNames(page.get(0)));
+    }
+
+    @Test
+    void testQueriesOfStreamedBodyAreCounted() throws Exception {
+        stream(get("/films"));
+        DistributionSummary summary = registry.get("filmorate.sql.per.request")
+                .tags("method", "GET", "uri", "/films").summary();
+        long count = summary.count();
+        double total = summary.totalAmount();
+
+        stream(get("/films"));
+
+        // одна запись на запрос, и в ней страницы, прочитанные уже в потоке тела ответа
+        assertEquals(count + 1, summary.count());
+        assertTrue(summary.totalAmount() - total >= (double) FILMS / 500);
+    }
+
+    @Test
+    void testUnknownFieldIsRejected() throws Exception {
+        mockMvc.perform(get("/films").param("fields", "name,budget")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films").param("limit", "10").param("fields", "budget"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode stream(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    // База общая с другими тестами: проверяются только созданные здесь фильмы, id которых идут подряд
+    private boolean isOwn(long id) {
+        return id >= firstId && id <= lastId;
+    }
+
+    private static Set<String> fieldNames(JsonNode node) {
+        Set<String> names = new HashSet<>();
+        Iterator<String> iterator = node.fieldNames();
+        iterator.forEachRemaining(names::add);
+        return names;
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.IntegrationTest;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class UserFeedTest extends IntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserDbStorage userDbStorage;
+
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+
+    @Test
+    void testRetriesAddNoEventsAndPagesContinueAfterLastId() throws Exception {
+        long userId = userDbStorage.create(user("feed-owner")).getId();
+        long friendId = userDbStorage.create(user("feed-friend")).getId();
+        long otherId = userDbStorage.create(user("feed-other")).getId();
+        long filmId = filmDbStorage.create(film()).getId();
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(put("/users/{id}/friends/{friendId}", userId, friendId)).andExpect(status().isOk());
+        }
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId)).andExpect(status().isOk());
+        }
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(delete("/films/{id}/like/{userId}", filmId, userId)).andExpect(status().isOk());
+        }
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", userId, otherId)).andExpect(status().isOk());
+
+        JsonNode first = feed(userId, 0, 2);
+        assertEquals(List.of("FRIEND ADD " + friendId, "LIKE ADD " + filmId), describe(first));
+
+        JsonNode second = feed(userId, lastId(first), 2);
+        assertEquals(List.of("LIKE REMOVE " + filmId, "FRIEND ADD " + otherId), describe(second));
+
+        assertEquals(0, feed(userId, lastId(second), 2).size());
+        assertEquals(0, feed(friendId, 0, 100).size());
+    }
+
+    private JsonNode feed(long userId, long afterId, int limit) throws Exception {
+        String body = mockMvc.perform(get("/users/{id}/feed", userId)
+                        .param("afterId", String.valueOf(afterId))
+                        .param("limit", String.valueOf(limit)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private static long lastId(JsonNode events) {
+        return events.get(events.size() - 1).get("eventId").asLong();
+    }
+
+    private static List<String> describe(JsonNode events) {
+        List<String> result = new ArrayList<>();
+        for (JsonNode event : events) {
+            result.add(event.get("eventType").asText() + " " + event.get("operation").asText() + " " +
+                    event.get("entityId").asLong());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,179 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.IntegrationTest;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.index.FriendshipIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class FriendshipWritesTest extends IntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private UserDbStorage userDbStorage;
+
+    @Autowired
+    private FriendshipIndex friendshipIndex;
+
+    @Autowired
+    private FriendshipCompactionJob compactionJob;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void testRepeatedRequestKeepsOneRowPerDirectionAndOneEvent() throws Exception {
+        long userId = userDbStorage.create(user("repeat-from")).getId();
+        long friendId = userDbStorage.create(user("repeat-to")).getId();
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            addFriend(userId, friendId);
+        }
+
+        assertEquals(List.of(userId + "->" + friendId + ":true", friendId + "->" + userId + ":false"),
+                rows(userId, friendId));
+        assertEquals(1, friendEvents(userId));
+        assertArrayEquals(new long[]{friendId}, friendshipIndex.friendIds(userId));
+        assertArrayEquals(new long[0], friendshipIndex.friendIds(friendId));
+    }
+
+    @Test
+    void testParallelRequestsFromBothSidesRecordEachAdditionOnce() throws Exception {
+        long userId = userDbStorage.create(user("parallel-from")).getId();
+        long friendId = userDbStorage.create(user("parallel-to")).getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> requests = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            boolean forward = i % 2 == 0;
+            requests.add(executor.submit(() -> {
+                start.await();
+                return forward ? userService.addFriend(userId, friendId) : userService.addFriend(friendId, userId);
+            }));
+        }
+        start.countDown();
+        for (Future<?> request : requests) {
+            request.get();
+        }
+        executor.shutdown();
+
+        assertEquals(List.of(userId + "->" + friendId + ":true", friendId + "->" + userId + ":true"),
+                rows(userId, friendId));
+        assertEquals(1, friendEvents(userId));
+        assertEquals(1, friendEvents(friendId));
+        assertArrayEquals(new long[]{friendId}, friendshipIndex.friendIds(userId));
+        assertArrayEquals(new long[]{userId}, friendshipIndex.friendIds(friendId));
+    }
+
+    @Test
+    void testConfirmationUpgradesPendingRequest() throws Exception {
+        long userId = userDbStorage.create(user("confirm-from")).getId();
+        long friendId = userDbStorage.create(user("confirm-to")).getId();
+
+        addFriend(userId, friendId);
+        addFriend(friendId, userId);
+
+        assertEquals(List.of(userId + "->" + friendId + ":true", friendId + "->" + userId + ":true"),
+                rows(userId, friendId));
+        assertEquals(1, friendEvents(friendId));
+        assertArrayEquals(new long[]{userId}, friendshipIndex.friendIds(friendId));
+
+        // повторная заявка не понижает уже подтверждённую встречную запись
+        addFriend(userId, friendId);
+        assertEquals(List.of(userId + "->" + friendId + ":true", friendId + "->" + userId + ":true"),
+                rows(userId, friendId));
+    }
+
+    @Test
+    void testRemovalKeepsOtherSideConfirmedRow() throws Exception {
+        long userId = userDbStorage.create(user("remove-from")).getId();
+        long friendId = userDbStorage.create(user("remove-to")).getId();
+        addFriend(userId, friendId);
+        addFriend(friendId, userId);
+
+        mockMvc.perform(delete("/users/{id}/friends/{friendId}", userId, friendId)).andExpect(status().isOk());
+        mockMvc.perform(delete("/users/{id}/friends/{friendId}", userId, friendId)).andExpect(status().isOk());
+
+        assertEquals(List.of(friendId + "->" + userId + ":true"), rows(userId, friendId));
+        assertArrayEquals(new long[0], friendshipIndex.friendIds(userId));
+        assertArrayEquals(new long[]{userId}, friendshipIndex.friendIds(friendId));
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM events WHERE user_id = ? AND " +
+                "event_type = 'FRIEND' AND operation = 'REMOVE'", Integer.class, userId));
+    }
+
+    @Test
+    void testCompactionDeletesOnlyOrphanedPendingRows() throws Exception {
+        long first = userDbStorage.create(user("compact-first")).getId();
+        long second = userDbStorage.create(user("compact-second")).getId();
+        long orphanFrom = userDbStorage.create(user("compact-orphan-from")).getId();
+        long orphanTo = userDbStorage.create(user("compact-orphan-to")).getId();
+        addFriend(first, second);
+        // ожидающая заявка без подтверждённой встречной записи — след прежних неатомарных записей
+        jdbc.update("INSERT INTO friendship_request(from_user_id, to_user_id, status) VALUES (?, ?, false)",
+                orphanFrom, orphanTo);
+
+        compactionJob.compact();
+
+        assertEquals(List.of(first + "->" + second + ":true", second + "->" + first + ":false"),
+                rows(first, second));
+        assertEquals(List.of(), rows(orphanFrom, orphanTo));
+    }
+
+    @Test
+    void testMigrationCollapsesDuplicateDirections() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:friendship-migration;DB_CLOSE_DELAY=-1", "sa", "password");
+        Flyway.configure().dataSource(dataSource).target("4").load().migrate();
+        JdbcTemplate legacy = new JdbcTemplate(dataSource);
+        legacy.update("INSERT INTO users(email, login, birthday) VALUES ('a@example.com', 'a', DATE '1990-01-01'), " +
+                "('b@example.com', 'b', DATE '1990-01-01')");
+        legacy.update("INSERT INTO friendship_request(from_user_id, to_user_id, status) " +
+                "VALUES (1, 2, true), (1, 2, false), (2, 1, false)");
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        assertEquals(List.of("1->2:true", "2->1:false"), legacy.query("SELECT * FROM friendship_request " +
+                "ORDER BY from_user_id, to_user_id", (rs, rowNum) -> rs.getLong("from_user_id") + "->" +
+                rs.getLong("to_user_id") + ":" + rs.getBoolean("status")));
+    }
+
+    private void addFriend(long userId, long friendId) throws Exception {
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", userId, friendId)).andExpect(status().isOk());
+    }
+
+    private List<String> rows(long userId, long friendId) {
+        return jdbc.query("SELECT from_user_id, to_user_id, status FROM friendship_request " +
+                        "WHERE (from_user_id = ? AND to_user_id = ?) OR (from_user_id = ? AND to_user_id = ?) " +
+                        "ORDER BY from_user_id = ? DESC",
+                (rs, rowNum) -> rs.getLong("from_user_id") + "->" + rs.getLong("to_user_id") + ":" +
+                        rs.getBoolean("status"), userId, friendId, friendId, userId, userId);
+    }
+
+    private int friendEvents(long userId) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM events WHERE user_id = ? AND event_type = 'FRIEND' " +
+                "AND operation = 'ADD'", Integer.class, userId);
+    }
+}
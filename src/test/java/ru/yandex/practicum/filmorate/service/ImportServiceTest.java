@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.IntegrationTest;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ImportServiceTest extends IntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+
+    @Autowired
+    private UserDbStorage userDbStorage;
+
+    @Autowired
+    private GenreDbStorage genreDbStorage;
+
+    @Autowired
+    private FilmSearchIndex filmSearchIndex;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void testArrayAndNdjsonReportSameItemErrors() throws Exception {
+        Film unnamed = film();
+        unnamed.setName("");
+        Film unknownMpa = film();
+        unknownMpa.setMpa(new Mpa(99, null));
+        List<Film> films = List.of(film(), unnamed, unknownMpa, film());
+
+        String array = objectMapper.writeValueAsString(films);
+        String ndjson = films.stream().map(this::json).collect(Collectors.joining("\n"));
+        for (ImportResult result : List.of(
+                importBatch("/films/batch", MediaType.APPLICATION_JSON, array),
+                importBatch("/films/batch", MediaType.APPLICATION_NDJSON, ndjson))) {
+            assertEquals(4, result.total());
+            assertEquals(2, result.imported());
+            assertEquals(List.of(1, 2), result.errors().stream().map(ImportResult.ImportError::index).toList());
+            assertTrue(result.errors().get(0).message().startsWith("name: "));
+            assertEquals("Mpa неверный", result.errors().get(1).message());
+            assertEquals(2, result.ids().size());
+            assertTrue(filmDbStorage.existsAll(result.ids()));
+        }
+    }
+
+    @Test
+    void testLikesWithMissingReferencesAreReportedPerItem() throws Exception {
+        long filmId = filmDbStorage.create(film()).getId();
+        long userId = userDbStorage.create(user("import-liker")).getId();
+        String likes = objectMapper.writeValueAsString(List.of(
+                like(filmId, userId), like(Integer.MAX_VALUE, userId), like(filmId, Integer.MAX_VALUE)));
+
+        ImportResult result = importBatch("/films/likes/batch", MediaType.APPLICATION_JSON, likes);
+
+        assertEquals(1, result.imported());
+        assertEquals(List.of(new ImportResult.ImportError(1, "Нет фильма с id: " + Integer.MAX_VALUE),
+                new ImportResult.ImportError(2, "Нет пользователя с id: " + Integer.MAX_VALUE)), result.errors());
+        assertEquals(1, jdbc.queryForObject("SELECT likes_count FROM films WHERE id = ?", Integer.class, filmId));
+    }
+
+    @Test
+    void testUsersAreImportedFromNdjson() throws Exception {
+        User invalid = user("import-invalid");
+        invalid.setEmail("не почта");
+        String ndjson = json(user("import-first")) + "\n" + json(invalid) + "\n" + json(user("import-second"));
+
+        ImportResult result = importBatch("/users/batch", MediaType.APPLICATION_NDJSON, ndjson);
+
+        assertEquals(2, result.imported());
+        assertEquals(1, result.errors().size());
+        assertEquals(1, result.errors().get(0).index());
+        assertEquals("import-second", userDbStorage.findById(result.ids().get(1)).getLogin());
+    }
+
+    @Test
+    void testFailedChunkRollsBackOnlyItsFilms() {
+        // Жанр есть в справочнике, но строки в базе уже нет: вставка films_genre упадёт после вставки фильмов
+        jdbc.update("INSERT INTO genre(id, name) VALUES (100, 'Удалённый')");
+        genreDbStorage.refresh();
+        jdbc.update("DELETE FROM genre WHERE id = 100");
+        try {
+            List<Film> films = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                films.add(film());
+            }
+            Film rolledBack = film();
+            rolledBack.setName("Откатанный");
+            films.add(rolledBack);
+            Film broken = film();
+            broken.setGenres(List.of(new Genre(100, null)));
+            films.add(broken);
+
+            ImportResult result = importService.importFilms(films.iterator());
+
+            assertEquals(1000, result.imported());
+            assertEquals(List.of(1000, 1001), result.errors().stream().map(ImportResult.ImportError::index).toList());
+            assertTrue(result.errors().get(0).message().startsWith("Ошибка сохранения"));
+            assertTrue(filmDbStorage.existsAll(result.ids()));
+            assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM films WHERE name = 'Откатанный'",
+                    Integer.class));
+            assertEquals(List.of(), filmSearchIndex.search("Откатанный", EnumSet.allOf(FilmSearchIndex.Field.class),
+                    10));
+        } finally {
+            genreDbStorage.refresh();
+        }
+    }
+
+    private ImportResult importBatch(String path, MediaType type, String body) throws Exception {
+        String response = mockMvc.perform(post(path).contentType(type).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        return objectMapper.readValue(response, ImportResult.class);
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
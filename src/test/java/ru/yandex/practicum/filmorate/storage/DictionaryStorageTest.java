@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DictionaryStorageTest {
+
+    @Test
+    void testGenreLookupsReturnPreloadedInstances() {
+        Genre comedy = new Genre(1, "Комедия");
+        GenreDbStorage storage = new GenreDbStorage(rows(comedy), null);
+        storage.refresh();
+
+        assertSame(comedy, storage.findById(1));
+        assertSame(comedy, storage.findAll().get(0));
+        assertSame(storage.findAll(), storage.findAll());
+    }
+
+    @Test
+    void testMpaLookupsReturnPreloadedInstances() {
+        Mpa rating = new Mpa(1, "G");
+        MpaDbStorage storage = new MpaDbStorage(rows(rating), null);
+        storage.refresh();
+
+        assertSame(rating, storage.findById(1));
+        assertSame(rating, storage.findAll().get(0));
+        assertSame(storage.findAll(), storage.findAll());
+    }
+
+    // Справочник читается одним запросом; вместо базы возвращаем готовые строки
+    private static JdbcTemplate rows(Object... rows) {
+        return new JdbcTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> List<T> query(String sql, RowMapper<T> rowMapper) {
+                return (List<T>) List.of(rows);
+            }
+        };
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.IntegrationTest;
+import ru.yandex.practicum.filmorate.exception.PreconditionFailedException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmDbStorageConcurrencyTest extends IntegrationTest {
+    private static final int WRITERS = 8;
+    private static final int UPDATES_PER_WRITER = 50;
+
+    @Autowired
+    private FilmDbStorage storage;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void testParallelWritersLoseNoUpdates() throws Exception {
+        Film created = storage.create(film(null, 100, List.of(1L)));
+        long id = created.getId();
+        long initialVersion = storage.findById(id).getVersion();
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger filmsWithoutGenres = new AtomicInteger();
+        List<Future<?>> writers = new ArrayList<>();
+        for (int writer = 0; writer < WRITERS; writer++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < UPDATES_PER_WRITER; i++) {
+                    incrementDuration(id, i);
+                }
+                return null;
+            }));
+        }
+        // Читатель не должен увидеть фильм без жанров посреди чужого обновления
+        Future<?> reader = executor.submit(() -> {
+            start.await();
+            while (writing.get()) {
+                Integer genres = jdbc.queryForObject("SELECT COUNT(*) FROM films_genre WHERE film_id = ?",
+                        Integer.class, id);
+                if (genres == null || genres == 0) {
+                    filmsWithoutGenres.incrementAndGet();
+                }
+            }
+            return null;
+        });
+
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        writing.set(false);
+        reader.get();
+        executor.shutdown();
+
+        Film result = storage.findById(id);
+        assertEquals(100 + WRITERS * UPDATES_PER_WRITER, result.getDuration());
+        assertEquals(initialVersion + WRITERS * UPDATES_PER_WRITER, result.getVersion());
+        assertEquals(0, filmsWithoutGenres.get());
+    }
+
+    // Чтение и запись с проверкой версии; при конфликте — повтор с перечитанной версией
+    private void incrementDuration(long id, int iteration) {
+        while (true) {
+            Film current = storage.findById(id);
+            List<Long> genres = iteration % 2 == 0 ? List.of(1L, 2L) : List.of(3L);
+            Film changed = film(id, current.getDuration() + 1, genres);
+            try {
+                storage.update(changed, current.getVersion());
+                return;
+            } catch (PreconditionFailedException e) {
+                // версия устарела, повторяем
+            }
+        }
+    }
+
+    private static Film film(Long id, int duration, List<Long> genreIds) {
+        Film film = film();
+        film.setId(id);
+        film.setDuration(duration);
+        List<Genre> genres = new ArrayList<>();
+        for (Long genreId : genreIds) {
+            genres.add(new Genre(genreId, null));
+        }
+        film.setGenres(genres);
+        return film;
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.IntegrationTest;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.index.FilmLikesIndex;
+import ru.yandex.practicum.filmorate.storage.index.PopularFilmsIndex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LikeDbStorageTest extends IntegrationTest {
+
+    @Autowired
+    private LikeDbStorage likeDbStorage;
+
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+
+    @Autowired
+    private UserDbStorage userDbStorage;
+
+    @Autowired
+    private PopularFilmsIndex popularFilmsIndex;
+
+    @Autowired
+    private FilmLikesIndex filmLikesIndex;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Test
+    void testCommittedLikeReachesIndexes() {
+        long filmId = filmDbStorage.create(film()).getId();
+        long userId = userDbStorage.create(user("committed")).getId();
+
+        assertTrue(likeDbStorage.addLike(filmId, userId));
+
+        assertTrue(popularFilmsIndex.top(Integer.MAX_VALUE).contains(filmId));
+        assertArrayEquals(new long[]{filmId}, filmLikesIndex.likedFilmIds(userId));
+
+        assertEquals(1, likeDbStorage.deleteLikes(List.of(like(filmId, userId))).size());
+        assertFalse(popularFilmsIndex.top(Integer.MAX_VALUE).contains(filmId));
+        assertArrayEquals(new long[0], filmLikesIndex.likedFilmIds(userId));
+    }
+
+    @Test
+    void testLikeIsRolledBackWhenEventFails() {
+        long filmId = filmDbStorage.create(film()).getId();
+        long userId = userDbStorage.create(user("event-fails")).getId();
+
+        // без таблицы событий запись события упадёт уже после вставки лайка
+        jdbc.execute("ALTER TABLE events RENAME TO events_off");
+        try {
+            assertThrows(DataAccessException.class, () -> filmService.like(filmId, userId));
+        } finally {
+            jdbc.execute("ALTER TABLE events_off RENAME TO events");
+        }
+
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM films_likes WHERE film_id = ?",
+                Integer.class, filmId));
+        assertEquals(0, jdbc.queryForObject("SELECT likes_count FROM films WHERE id = ?", Integer.class, filmId));
+        assertArrayEquals(new long[0], filmLikesIndex.likedFilmIds(userId));
+
+        filmService.like(filmId, userId);
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM events WHERE user_id = ? AND entity_id = ? " +
+                "AND event_type = 'LIKE' AND operation = 'ADD'", Integer.class, userId, filmId));
+    }
+
+    @Test
+    void testRolledBackBatchLeavesIndexesUntouched() {
+        long filmId = filmDbStorage.create(film()).getId();
+        long userId = userDbStorage.create(user("rolled-back")).getId();
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> likeDbStorage.addLikes(List.of(like(filmId, userId), like(filmId, Integer.MAX_VALUE))));
+
+        assertEquals(0, jdbc.queryForObject("SELECT likes_count FROM films WHERE id = ?", Integer.class, filmId));
+        assertFalse(popularFilmsIndex.top(Integer.MAX_VALUE).contains(filmId));
+        assertArrayEquals(new long[0], filmLikesIndex.likedFilmIds(userId));
+    }
+
+    @Test
+    void testLikeInRolledBackTransactionLeavesIndexesUntouched() {
+        long filmId = filmDbStorage.create(film()).getId();
+        long userId = userDbStorage.create(user("outer")).getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(likeDbStorage.addLike(filmId, userId));
+            status.setRollbackOnly();
+        });
+
+        assertFalse(popularFilmsIndex.top(Integer.MAX_VALUE).contains(filmId));
+        assertArrayEquals(new long[0], filmLikesIndex.likedFilmIds(userId));
+    }
+}
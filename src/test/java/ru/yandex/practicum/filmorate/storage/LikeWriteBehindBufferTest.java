@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LikeWriteBehindBufferTest {
+    // Пользователь, удалённый после приёма лайка: пакет с ним откатывается целиком
+    private static final long DELETED_USER = 404;
+
+    private final List<String> written = new ArrayList<>();
+    private final Set<String> stored = new HashSet<>();
+    private final List<String> events = new ArrayList<>();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LikeDbStorage storage = new LikeDbStorage(null, null, null) {
+        @Override
+        public synchronized List<Like> addLikes(List<Like> likes) {
+            if (likes.stream().anyMatch(like -> like.getUserId() == DELETED_USER)) {
+                throw new DataIntegrityViolationException("films_likes.user_id");
+            }
+            likes.forEach(like -> written.add("+" + key(like)));
+            return likes.stream().filter(like -> stored.add(key(like))).toList();
+        }
+
+        @Override
+        public synchronized List<Like> deleteLikes(List<Like> likes) {
+            likes.forEach(like -> written.add("-" + key(like)));
+            return likes.stream().filter(like -> stored.remove(key(like))).toList();
+        }
+    };
+    private final EventDbStorage eventStorage = new EventDbStorage(null, null) {
+        @Override
+        public synchronized void appendAll(List<Event> appended) {
+            appended.forEach(event -> events.add(event.getOperation() + " " + event.getEntityId() + ":" +
+                    event.getUserId()));
+        }
+    };
+
+    private static String key(Like like) {
+        return like.getFilmId() + ":" + like.getUserId();
+    }
+
+    private LikeWriteBehindBuffer buffer(int capacity) {
+        return new LikeWriteBehindBuffer(storage, eventStorage, TransactionOperations.withoutTransaction(),
+                registry, capacity, 100,
+                Duration.ofHours(1), Duration.ofMillis(10));
+    }
+
+    @Test
+    void testLastOperationWinsAndBufferDrainedOnStop() {
+        LikeWriteBehindBuffer buffer = buffer(10);
+        buffer.start();
+        buffer.like(1, 1);
+        buffer.unlike(1, 1);
+        buffer.like(2, 1);
+        buffer.unlike(3, 1);
+        buffer.like(3, 1);
+        assertEquals(3, buffer.size());
+
+        buffer.stop();
+        assertEquals(0, buffer.size());
+        assertEquals(List.of("+2:1", "+3:1", "-1:1"), written);
+    }
+
+    @Test
+    void testRejectsWhenFull() {
+        LikeWriteBehindBuffer buffer = buffer(2);
+        buffer.start();
+        buffer.like(1, 1);
+        buffer.like(2, 1);
+        buffer.unlike(2, 1);
+        assertThrows(ServiceUnavailableException.class, () -> buffer.like(3, 1));
+
+        buffer.stop();
+        assertThrows(ServiceUnavailableException.class, () -> buffer.like(3, 1));
+    }
+
+    @Test
+    void testDanglingReferenceDropsOnlyItsOwnLike() {
+        LikeWriteBehindBuffer buffer = buffer(10);
+        buffer.start();
+        buffer.like(1, 1);
+        buffer.like(2, DELETED_USER);
+        buffer.like(3, 1);
+        buffer.unlike(4, 1);
+
+        buffer.stop();
+        assertEquals(List.of("+1:1", "+3:1", "-4:1"), written);
+        assertEquals(1, registry.counter("filmorate.likes.write-behind.dropped").count());
+        assertEquals(3, registry.counter("filmorate.likes.write-behind.flushed").count());
+        assertEquals(List.of("ADD 1:1", "ADD 3:1"), events);
+    }
+
+    @Test
+    void testEventsOnlyForRowsChangedInDatabase() {
+        stored.add("5:1");
+        stored.add("8:2");
+        LikeWriteBehindBuffer buffer = buffer(10);
+        buffer.start();
+        buffer.like(5, 1);
+        buffer.like(6, 1);
+        buffer.unlike(7, 1);
+        buffer.unlike(8, 2);
+
+        buffer.stop();
+        assertEquals(List.of("ADD 6:1", "REMOVE 8:2"), events);
+    }
+}
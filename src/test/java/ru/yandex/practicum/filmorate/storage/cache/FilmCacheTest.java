@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.config.MetricsConfig;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class FilmCacheTest {
+
+    @Test
+    void testLeastRecentlyUsedFilmIsEvictedAtCapacity() {
+        FilmCache cache = new FilmCache(2, Duration.ofMinutes(10));
+        Film first = film(1);
+        Film second = film(2);
+        cache.putAll(List.of(first, second), cache.stamp());
+
+        // обращение делает первый фильм последним использованным, вытесняется второй
+        assertSame(first, cache.get(1));
+        cache.putAll(List.of(film(3)), cache.stamp());
+
+        assertSame(first, cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(2, cache.stats().size());
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void testEntryExpiresAfterTtl() throws InterruptedException {
+        FilmCache cache = new FilmCache(10, Duration.ofMillis(20));
+        cache.putAll(List.of(film(1)), cache.stamp());
+        assertEquals(1, cache.get(1).getId());
+
+        Thread.sleep(50);
+
+        assertNull(cache.get(1));
+        assertEquals(0, cache.stats().size());
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void testLoadStartedBeforeInvalidationIsNotCached() {
+        FilmCache cache = new FilmCache(10, Duration.ofMinutes(10));
+        long stamp = cache.stamp();
+        // пока фильм читался из базы, его обновили
+        cache.invalidate(1);
+        cache.putAll(List.of(film(1)), stamp);
+        assertNull(cache.get(1));
+
+        stamp = cache.stamp();
+        cache.clear();
+        cache.putAll(List.of(film(1)), stamp);
+        assertNull(cache.get(1));
+
+        cache.putAll(List.of(film(1)), cache.stamp());
+        assertEquals(1, cache.get(1).getId());
+    }
+
+    @Test
+    void testZeroSizeDisablesCache() {
+        FilmCache cache = new FilmCache(0, Duration.ofMinutes(10));
+        cache.putAll(List.of(film(1)), cache.stamp());
+
+        assertNull(cache.get(1));
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    void testCountersAreExportedAsMetrics() {
+        FilmCache cache = new FilmCache(1, Duration.ofMinutes(10));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new MetricsConfig().filmCacheMetrics(cache).bindTo(registry);
+
+        cache.putAll(List.of(film(1)), cache.stamp());
+        cache.get(1);
+        cache.get(1);
+        cache.get(2);
+        cache.putAll(List.of(film(2)), cache.stamp());
+
+        assertEquals(2, registry.get("filmorate.cache.films.hits").functionCounter().count());
+        assertEquals(1, registry.get("filmorate.cache.films.misses").functionCounter().count());
+        assertEquals(1, registry.get("filmorate.cache.films.evictions").functionCounter().count());
+        assertEquals(1, registry.get("filmorate.cache.films.size").gauge().value());
+    }
+
+    private static Film film(long id) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName("Фильм " + id);
+        return film;
+    }
+}
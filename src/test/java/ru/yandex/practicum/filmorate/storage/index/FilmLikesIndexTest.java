@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class FilmLikesIndexTest {
+    private FilmLikesIndex index;
+
+    @BeforeEach
+    public void beforeEach() {
+        index = new FilmLikesIndex(null);
+    }
+
+    @Test
+    void testRecommendationsFromMostSimilarUsers() {
+        index.addLike(1, 1);
+        index.addLike(2, 1);
+        index.addLike(3, 1);
+
+        index.addLike(1, 2);
+        index.addLike(2, 2);
+        index.addLike(4, 2);
+
+        index.addLike(1, 3);
+        index.addLike(5, 3);
+        index.addLike(4, 3);
+
+        index.addLike(6, 4);
+
+        assertArrayEquals(new long[]{4, 5}, index.recommendations(1, 10));
+        assertArrayEquals(new long[]{4}, index.recommendations(1, 1));
+        assertArrayEquals(new long[0], index.recommendations(5, 10));
+    }
+
+    @Test
+    void testUnlikeRemovesFilmFromUserLikes() {
+        index.addLike(1, 1);
+        index.addLike(2, 1);
+        index.removeLike(1, 1);
+        assertArrayEquals(new long[]{2}, index.likedFilmIds(1));
+
+        index.removeFilm(2);
+        assertArrayEquals(new long[0], index.likedFilmIds(1));
+    }
+
+    @Test
+    void testCommonFilms() {
+        index.addLike(3, 1);
+        index.addLike(1, 1);
+        index.addLike(2, 1);
+        index.addLike(2, 2);
+        index.addLike(3, 2);
+        index.addLike(4, 2);
+
+        assertArrayEquals(new long[]{2, 3}, index.commonFilmIds(1, 2));
+        assertArrayEquals(new long[0], index.commonFilmIds(1, 3));
+    }
+}
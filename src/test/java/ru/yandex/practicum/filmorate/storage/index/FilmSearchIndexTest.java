@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmSearchIndexTest {
+    private static final Set<FilmSearchIndex.Field> ALL = Set.of(FilmSearchIndex.Field.TITLE,
+            FilmSearchIndex.Field.DESCRIPTION);
+
+    private FilmSearchIndex index;
+
+    @BeforeEach
+    public void beforeEach() {
+        index = new FilmSearchIndex(null);
+        index.index(1, "Ёлки", "Новогодняя комедия");
+        index.index(2, "Matrix", "Нео узнаёт правду о мире");
+        index.index(3, "Новогодний корпоратив", "Комедия");
+    }
+
+    @Test
+    void testPrefixAndCaseInsensitive() {
+        assertEquals(List.of(1L), index.search("ЕЛК", ALL, 10));
+        assertEquals(List.of(2L), index.search("matr", ALL, 10));
+        assertEquals(List.of(2L), index.search("узнает", ALL, 10));
+    }
+
+    @Test
+    void testTitleRankedAboveDescription() {
+        assertEquals(List.of(3L, 1L), index.search("новогод", ALL, 10));
+        assertEquals(List.of(1L), index.search("новогод", Set.of(FilmSearchIndex.Field.DESCRIPTION), 10));
+        assertEquals(List.of(3L), index.search("новогодний комедия", ALL, 10));
+    }
+
+    @Test
+    void testReindexAndRemove() {
+        index.index(2, "Матрица", null);
+        assertEquals(List.of(), index.search("matrix", ALL, 10));
+        assertEquals(List.of(2L), index.search("матрица", ALL, 10));
+
+        index.removeFilm(2);
+        assertEquals(List.of(), index.search("матрица", ALL, 10));
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FriendshipIndexTest {
+    private FriendshipIndex index;
+
+    @BeforeEach
+    public void beforeEach() {
+        index = new FriendshipIndex(null);
+    }
+
+    @Test
+    void testFriendsAreSortedAndUnique() {
+        index.addFriend(1, 5);
+        index.addFriend(1, 3);
+        index.addFriend(1, 4);
+        index.addFriend(1, 3);
+        assertArrayEquals(new long[]{3, 4, 5}, index.friendIds(1));
+        assertTrue(index.isFriend(1, 4));
+        assertFalse(index.isFriend(4, 1));
+
+        index.removeFriend(1, 4);
+        assertArrayEquals(new long[]{3, 5}, index.friendIds(1));
+    }
+
+    @Test
+    void testCommonFriends() {
+        index.addFriend(1, 3);
+        index.addFriend(1, 4);
+        index.addFriend(1, 6);
+        index.addFriend(2, 4);
+        index.addFriend(2, 5);
+        index.addFriend(2, 6);
+        assertArrayEquals(new long[]{4, 6}, index.commonFriendIds(1, 2));
+        assertArrayEquals(new long[0], index.commonFriendIds(1, 7));
+
+        index.removeUser(4);
+        assertArrayEquals(new long[]{6}, index.commonFriendIds(1, 2));
+    }
+
+    @Test
+    void testSuggestionsRankedByMutualFriends() {
+        index.addFriend(1, 2);
+        index.addFriend(1, 3);
+        index.addFriend(1, 4);
+        index.addFriend(2, 1);
+        index.addFriend(2, 5);
+        index.addFriend(2, 6);
+        index.addFriend(3, 6);
+        index.addFriend(3, 3);
+        index.addFriend(4, 6);
+        index.addFriend(4, 5);
+        index.addFriend(4, 2);
+        assertArrayEquals(new long[]{6, 5}, index.suggestions(1, 10));
+        assertArrayEquals(new long[]{6}, index.suggestions(1, 1));
+        assertArrayEquals(new long[0], index.suggestions(7, 10));
+    }
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdBitSetTest {
+
+    @Test
+    void testContainsOnlyAddedIds() {
+        IdBitSet ids = new IdBitSet();
+        ids.add(1);
+        ids.add(63);
+        ids.add(64);
+        ids.add(100_000);
+
+        assertTrue(ids.mightContain(1));
+        assertTrue(ids.mightContain(63));
+        assertTrue(ids.mightContain(64));
+        assertTrue(ids.mightContain(100_000));
+        assertFalse(ids.mightContain(0));
+        assertFalse(ids.mightContain(2));
+        assertFalse(ids.mightContain(99_999));
+    }
+
+    @Test
+    void testOutOfRangeIdsAreAbsent() {
+        IdBitSet ids = new IdBitSet();
+        ids.add(5);
+
+        assertFalse(ids.mightContain(-5));
+        assertFalse(ids.mightContain(1L << 40));
+        assertFalse(ids.mightContain(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testClear() {
+        IdBitSet ids = new IdBitSet();
+        ids.add(7);
+        ids.clear();
+
+        assertFalse(ids.mightContain(7));
+    }
+}
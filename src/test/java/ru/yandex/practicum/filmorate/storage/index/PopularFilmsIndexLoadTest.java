@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import ru.yandex.practicum.filmorate.IntegrationTest;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PopularFilmsIndexLoadTest extends IntegrationTest {
+
+    @Autowired
+    private PopularFilmsIndex index;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void testLoadReadsLikesGenresAndYears() {
+        long drama2000 = insertFilm(LocalDate.of(2000, 5, 1), 3, 2L);
+        long comedy2000 = insertFilm(LocalDate.of(2000, 7, 1), 5, 1L);
+        long comedyDrama2010 = insertFilm(LocalDate.of(2010, 1, 1), 4, 1L, 2L);
+        long undated = insertFilm(null, 1, 2L);
+
+        List<Long> own = List.of(drama2000, comedy2000, comedyDrama2010, undated);
+
+        index.load();
+
+        assertEquals(List.of(comedy2000, comedyDrama2010, drama2000, undated), top(own, null, null));
+        assertEquals(List.of(comedyDrama2010, drama2000, undated), top(own, 2L, null));
+        assertEquals(List.of(comedy2000, drama2000), top(own, null, 2000));
+        assertEquals(List.of(drama2000), top(own, 2L, 2000));
+        assertEquals(List.of(), top(own, 3L, null));
+    }
+
+    // В общей базе есть фильмы других тестов; порядок проверяется среди своих
+    private List<Long> top(List<Long> own, Long genreId, Integer year) {
+        return index.top(Integer.MAX_VALUE, genreId, year).stream().filter(own::contains).toList();
+    }
+
+    private long insertFilm(LocalDate releaseDate, int likes, Long... genreIds) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("INSERT INTO films(name, description, releaseDate, " +
+                    "duration, mpa_id, likes_count) VALUES ('Фильм', 'Описание', ?, 100, 1, ?)", new String[]{"id"});
+            ps.setDate(1, releaseDate == null ? null : Date.valueOf(releaseDate));
+            ps.setInt(2, likes);
+            return ps;
+        }, keyHolder);
+        long id = keyHolder.getKey().longValue();
+        for (Long genreId : genreIds) {
+            jdbc.update("INSERT INTO films_genre(film_id, genre_id) VALUES (?, ?)", id, genreId);
+        }
+        return id;
+    }
+}
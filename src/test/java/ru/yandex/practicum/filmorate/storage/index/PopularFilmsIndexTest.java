@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PopularFilmsIndexTest {
+    private PopularFilmsIndex index;
+
+    @BeforeEach
+    public void beforeEach() {
+        index = new PopularFilmsIndex(null);
+    }
+
+    @Test
+    void testTopOrderedByLikes() {
+        index.changeLikes(1, 1);
+        index.changeLikes(2, 3);
+        index.changeLikes(3, 2);
+        assertEquals(List.of(2L, 3L, 1L), index.top(10));
+        assertEquals(List.of(2L, 3L), index.top(2));
+
+        index.changeLikes(1, 5);
+        assertEquals(List.of(1L, 2L, 3L), index.top(10));
+    }
+
+    @Test
+    void testFilmWithoutLikesLeavesRating() {
+        index.changeLikes(1, 1);
+        index.changeLikes(2, 1);
+        index.changeLikes(1, -1);
+        assertEquals(List.of(2L), index.top(10));
+
+        index.remove(2);
+        assertEquals(List.of(), index.top(10));
+    }
+
+    @Test
+    void testTopByGenreAndYear() {
+        index.describe(1, LocalDate.of(2000, 1, 1), List.of(1L, 2L));
+        index.describe(2, LocalDate.of(2000, 6, 1), List.of(2L));
+        index.describe(3, LocalDate.of(2010, 1, 1), List.of(1L));
+        index.changeLikes(1, 1);
+        index.changeLikes(2, 2);
+        index.changeLikes(3, 3);
+
+        assertEquals(List.of(3L, 1L), index.top(10, 1L, null));
+        assertEquals(List.of(2L, 1L), index.top(10, null, 2000));
+        assertEquals(List.of(1L), index.top(10, 1L, 2000));
+        assertEquals(List.of(), index.top(10, 3L, null));
+
+        index.describe(3, LocalDate.of(2000, 1, 1), List.of(2L));
+        assertEquals(List.of(1L), index.top(10, 1L, null));
+        assertEquals(List.of(3L, 2L, 1L), index.top(10, 2L, 2000));
+
+        index.remove(3);
+        assertEquals(List.of(2L, 1L), index.top(10, 2L, null));
+    }
+
+    @Test
+    void testRankOrdersByLikes() {
+        index.changeLikes(1, 1);
+        index.changeLikes(2, 3);
+        index.changeLikes(3, 2);
+
+        assertEquals(List.of(2L, 3L, 1L, 4L), index.rank(new long[]{1, 2, 3, 4}));
+        assertEquals(List.of(3L, 1L), index.rank(new long[]{1, 3}));
+    }
+}